@@ -20,6 +20,20 @@ package org.derive4j;
 
 public enum ArgOption {
 
-  checkedNotNull
+  checkedNotNull,
+
+  lockFreeLazy,
+
+  cachedHashCode,
+
+  interned,
+
+  jfrEvents,
+
+  ordinals,
+
+  unboxedPrimitives,
+
+  flatMatchingSteps
 
 }
@@ -91,6 +91,62 @@ public enum Make {
 
       return cases.factory();
     }
+  },
+
+  primitiveMatching {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.primitiveMatching();
+    }
+  },
+
+  contextMatching {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.contextMatching();
+    }
+  },
+
+  iterators {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.iterators();
+    }
+  },
+
+  constructorMaps {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.constructorMaps();
+    }
+  },
+
+  batchMatching {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.batchMatching();
+    }
+  },
+
+  columns {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.columns();
+    }
+  },
+
+  flyweight {
+    @Override
+    public <R> R match(Cases<R> cases) {
+
+      return cases.flyweight();
+    }
   };
 
   public interface Cases<R> {
@@ -111,6 +167,20 @@ public enum Make {
     R catamorphism();
 
     R factory();
+
+    R primitiveMatching();
+
+    R contextMatching();
+
+    R iterators();
+
+    R constructorMaps();
+
+    R batchMatching();
+
+    R columns();
+
+    R flyweight();
   }
 
   public abstract <R> R match(Cases<R> cases);
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import static org.derive4j.example.Messages.concat;
+import static org.derive4j.example.Messages.empty;
+import static org.derive4j.example.Messages.lazy;
+import static org.derive4j.example.Messages.text;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MessageTest {
+
+  static final String CONSTRUCTION = "org.derive4j.example.Message.Construction";
+  static final String FORCING      = "org.derive4j.example.Message.Forcing";
+
+  @Test
+  public void constructionsAndForcingsAreRecorded() throws IOException {
+    Path file = Files.createTempFile("messages", ".jfr");
+    try {
+      try (Recording recording = new Recording()) {
+        recording.enable(CONSTRUCTION);
+        recording.enable(FORCING);
+        recording.start();
+
+        Message message = lazy(() -> concat(text("hello"), concat(empty(), text("world"))));
+        for (int i = 0; i < 3; i++) {
+          assertTrue(Messages.caseOf(message).concat((left, right) -> true).otherwise(() -> false));
+        }
+
+        recording.stop();
+        recording.dump(file);
+      }
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+      Map<String, Long> constructions = events.stream()
+          .filter(event -> event.getEventType().getName().equals(CONSTRUCTION))
+          .collect(Collectors.groupingBy(event -> event.getString("constructor"), Collectors.counting()));
+      Map<String, Long> expected = new HashMap<>();
+      expected.put("text", 2L);
+      expected.put("empty", 1L);
+      expected.put("concat", 2L);
+      assertEquals(expected, constructions);
+
+      // the lazy value is forced once, then its evaluation is reused:
+      assertEquals(1, events.stream().filter(event -> event.getEventType().getName().equals(FORCING)).count());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+}
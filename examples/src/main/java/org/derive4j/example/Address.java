@@ -25,8 +25,11 @@ import fj.Show;
 import org.derive4j.Data;
 import org.derive4j.Derive;
 import org.derive4j.Instances;
+import org.derive4j.Make;
 
-@Data(@Derive(@Instances({ Show.class, Hash.class, Equal.class, Ord.class })))
+@Data(@Derive(value = @Instances({ Show.class, Hash.class, Equal.class, Ord.class }), make = { Make.lambdaVisitor,
+    Make.constructors, Make.getters, Make.modifiers, Make.lazyConstructor, Make.caseOfMatching, Make.casesMatching,
+    Make.catamorphism, Make.factory, Make.columns }))
 public abstract class Address {
 
   public abstract <R> R match(Cases<R> cases);
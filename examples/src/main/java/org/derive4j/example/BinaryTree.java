@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import org.derive4j.Data;
+import org.derive4j.Derive;
+import org.derive4j.Make;
+
+/**
+ * Binary search tree, whose values can be traversed in order with {@link BinaryTrees#inOrderIterator} (see
+ * {@link Make#iterators}).
+ */
+@Data(@Derive(make = { Make.constructors, Make.lazyConstructor, Make.casesMatching, Make.caseOfMatching,
+    Make.getters, Make.iterators, Make.batchMatching }))
+public abstract class BinaryTree<A> {
+
+  BinaryTree() {
+  }
+
+  public abstract <R> R match(Cases<A, R> cases);
+
+  interface Cases<A, R> {
+    R leaf();
+
+    R node(BinaryTree<A> left, A value, BinaryTree<A> right);
+  }
+
+  public static BinaryTree<Integer> insert(int value, BinaryTree<Integer> tree) {
+    return BinaryTrees.caseOf(tree)
+        .leaf(() -> BinaryTrees.node(BinaryTrees.leaf(), value, BinaryTrees.<Integer>leaf()))
+        .node((left, v, right) -> (value < v)
+            ? BinaryTrees.node(insert(value, left), v, right)
+            : BinaryTrees.node(left, v, insert(value, right)));
+  }
+}
@@ -22,7 +22,9 @@ import fj.*;
 import org.derive4j.*;
 
 @Data(flavour = Flavour.FJ)
-@Derive(@Instances({ Show.class, Hash.class, Equal.class, Ord.class }))
+@Derive(value = @Instances({ Show.class, Hash.class, Equal.class, Ord.class }), make = { Make.lambdaVisitor,
+    Make.constructors, Make.getters, Make.modifiers, Make.lazyConstructor, Make.caseOfMatching, Make.casesMatching,
+    Make.catamorphism, Make.factory, Make.columns })
 public abstract class Either<A, B> {
 
   Either() {
@@ -25,6 +25,7 @@ import fj.Hash;
 import fj.Ord;
 import fj.Show;
 import fj.control.Trampoline;
+import org.derive4j.ArgOption;
 import org.derive4j.Data;
 import org.derive4j.Derive;
 import org.derive4j.Flavour;
@@ -36,7 +37,8 @@ import static org.derive4j.example.Expressions.Mult;
 import static org.derive4j.example.Expressions.expressionHash;
 import static org.derive4j.example.Expressions.expressionShow;
 
-@Data(value = @Derive(@Instances({ Show.class, Hash.class, Equal.class, Ord.class })), flavour = Flavour.FJ)
+@Data(value = @Derive(@Instances({ Show.class, Hash.class, Equal.class, Ord.class })), flavour = Flavour.FJ,
+    arguments = ArgOption.unboxedPrimitives)
 public abstract class Expression {
 
   public static Integer eval(Expression expression) {
@@ -65,6 +67,12 @@ public abstract class Expression {
       expr -> expr.map(i -> -i),
       Trampoline::suspend);
 
+  static final F<Expression, Integer> strictEval = Expressions.strictCata(
+      value -> value,
+      (left, right) -> left + right,
+      (left, right) -> left * right,
+      expr -> -expr);
+
   public abstract <R> R match(Cases<Expression, R> cases);
 
   interface Cases<E, R> {
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import org.derive4j.ArgOption;
+import org.derive4j.Data;
+
+/**
+ * Formulas are hash-consed (see {@link ArgOption#interned}): equal sub-formulas share a single instance.
+ */
+@Data(arguments = ArgOption.interned)
+public abstract class Formula {
+
+  public interface Cases<R> {
+    R Var(String name);
+
+    R Not(Formula formula);
+
+    R And(Formula left, Formula right);
+
+    R Or(Formula left, Formula right);
+  }
+
+  Formula() {
+  }
+
+  public abstract <R> R match(Cases<R> cases);
+
+  @Override
+  public abstract boolean equals(Object obj);
+
+  @Override
+  public abstract int hashCode();
+
+  @Override
+  public abstract String toString();
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.derive4j.ArgOption;
+import org.derive4j.Data;
+
+import static org.derive4j.example.Bench.timed;
+
+/**
+ * Cost of HashMap lookups with large keys, with and without {@link ArgOption#cachedHashCode}.
+ */
+public class HashCodeBench {
+
+  static final int KEYS    = 1000;
+  static final int DEPTH   = 1000;
+  static final int LOOKUPS = 10;
+
+  @Data
+  abstract static class Path {
+
+    interface Cases<R> {
+      R root();
+
+      R child(String name, Path parent);
+    }
+
+    abstract <R> R match(Cases<R> cases);
+
+    @Override
+    public abstract int hashCode();
+
+    @Override
+    public abstract boolean equals(Object obj);
+
+    @Override
+    public abstract String toString();
+  }
+
+  @Data(arguments = ArgOption.cachedHashCode)
+  abstract static class CachedPath {
+
+    interface Cases<R> {
+      R root();
+
+      R child(String name, CachedPath parent);
+    }
+
+    abstract <R> R match(Cases<R> cases);
+
+    @Override
+    public abstract int hashCode();
+
+    @Override
+    public abstract boolean equals(Object obj);
+
+    @Override
+    public abstract String toString();
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+
+    Path[] paths = new Path[KEYS];
+    CachedPath[] cachedPaths = new CachedPath[KEYS];
+    for (int k = 0; k < KEYS; k++) {
+      Path path = Paths.root();
+      CachedPath cachedPath = CachedPaths.root();
+      for (int d = 0; d < DEPTH; d++) {
+        path = Paths.child(d == 0 ? "key" + k : "dir" + d, path);
+        cachedPath = CachedPaths.child(d == 0 ? "key" + k : "dir" + d, cachedPath);
+      }
+      paths[k] = path;
+      cachedPaths[k] = cachedPath;
+    }
+    Map<Path, Integer> pathMap = new HashMap<>();
+    Map<CachedPath, Integer> cachedPathMap = new HashMap<>();
+    for (int k = 0; k < KEYS; k++) {
+      pathMap.put(paths[k], k);
+      cachedPathMap.put(cachedPaths[k], k);
+    }
+
+    // Path: Average time: 923.380572 ms
+    timed(() -> {
+      int sum = 0;
+      for (int i = 0; i < LOOKUPS; i++) {
+        for (Path path : paths) {
+          sum += pathMap.get(path);
+        }
+      }
+      return sum;
+    });
+
+    // CachedPath: Average time: 0.132152 ms
+    timed(() -> {
+      int sum = 0;
+      for (int i = 0; i < LOOKUPS; i++) {
+        for (CachedPath path : cachedPaths) {
+          sum += cachedPathMap.get(path);
+        }
+      }
+      return sum;
+    });
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntSupplier;
+import org.derive4j.Data;
+
+import static org.derive4j.example.Bench.timed;
+
+/**
+ * Contention benchmark of lazy constructors: every thread walks the same chain of fresh lazy values, so each node is
+ * forced concurrently by all threads.
+ */
+public class LazyBench {
+
+  static final int LENGTH  = 100000;
+  static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+  @Data
+  abstract static class SyncNat {
+
+    interface Cases<R> {
+      R zero();
+
+      R succ(SyncNat pred);
+    }
+
+    abstract <R> R match(Cases<R> cases);
+  }
+
+  static final SyncNat.Cases<SyncNat> syncPred = SyncNats.cases(() -> null, pred -> pred);
+
+  static final Nat.Cases<Nat> natPred = Nats.cases(() -> null, pred -> pred);
+
+  public static void main(String[] args) throws InterruptedException {
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      // synchronized _evaluate(): Average time: 4.316440 ms
+      timed(() -> {
+        SyncNat n = syncNat(LENGTH);
+        return concurrently(executor, () -> depth(n));
+      });
+
+      // ArgOption.lockFreeLazy: Average time: 3.521013 ms
+      timed(() -> {
+        Nat n = nat(LENGTH);
+        return concurrently(executor, () -> depth(n));
+      });
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  static SyncNat syncNat(int n) {
+    return SyncNats.lazy(() -> n == 0 ? SyncNats.zero() : SyncNats.succ(syncNat(n - 1)));
+  }
+
+  static Nat nat(int n) {
+    return Nats.lazy(() -> n == 0 ? Nats.zero() : Nats.succ(nat(n - 1)));
+  }
+
+  static int depth(SyncNat n) {
+    int depth = 0;
+    while ((n = n.match(syncPred)) != null) {
+      depth++;
+    }
+    return depth;
+  }
+
+  static int depth(Nat n) {
+    int depth = 0;
+    while ((n = n.match(natPred)) != null) {
+      depth++;
+    }
+    return depth;
+  }
+
+  static int concurrently(ExecutorService executor, IntSupplier walk) {
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(THREADS);
+    int[] results = new int[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      int slot = t;
+      executor.execute(() -> {
+        try {
+          start.await();
+          results[slot] = walk.getAsInt();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    start.countDown();
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    int sum = 0;
+    for (int r : results) {
+      sum += r;
+    }
+    return sum;
+  }
+
+}
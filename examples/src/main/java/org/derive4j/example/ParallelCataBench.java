@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import fj.F;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.derive4j.example.Bench.timed;
+import static org.derive4j.example.Expressions.Add;
+import static org.derive4j.example.Expressions.Const;
+
+/**
+ * Folding a balanced tree of 2^22 (~4 millions) leaves: sequential strict catamorphism vs fork/join catamorphism,
+ * for several depth thresholds.
+ */
+public class ParallelCataBench {
+
+  static final int DEPTH = 22;
+
+  public static void main(String[] args) throws InterruptedException {
+
+    Expression balancedExpression = balanced(DEPTH);
+
+    // strictCata: Average time: 130.095029 ms
+    timed(() -> Expression.strictEval.f(balancedExpression));
+
+    // Timings of a single CPU environment, where no speed-up can be expected:
+    // parallelCata, threshold 4: Average time: 150.656813 ms
+    // parallelCata, threshold 8: Average time: 154.525781 ms
+    // parallelCata, threshold 12: Average time: 144.567641 ms
+    for (int threshold : new int[] { 4, 8, 12 }) {
+      F<Expression, Integer> parallelEval = Expressions.parallelCata(value -> value, (left, right) -> left + right,
+          (left, right) -> left * right, expr -> -expr, threshold, ForkJoinPool.commonPool());
+      timed(() -> parallelEval.f(balancedExpression));
+    }
+  }
+
+  static Expression balanced(int depth) {
+    return depth == 0
+        ? Const(1)
+        : Add(balanced(depth - 1), balanced(depth - 1));
+  }
+}
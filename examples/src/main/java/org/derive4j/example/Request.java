@@ -35,6 +35,7 @@ import static fj.data.optic.Lens.lens;
 import static fj.data.optic.Optional.optional;
 import static fj.data.optic.Prism.prism;
 import static org.derive4j.ArgOption.checkedNotNull;
+import static org.derive4j.ArgOption.ordinals;
 
 /**
  * A data type to modelize an http request. Abstract because concrete
@@ -44,7 +45,7 @@ import static org.derive4j.ArgOption.checkedNotNull;
  * determine which implementation of 'Option' or 'Function' will be used by
  * generated code.
  */
-@Data(flavour = Flavour.FJ, arguments = checkedNotNull, value = @Derive(@Instances(Show.class)))
+@Data(flavour = Flavour.FJ, arguments = { checkedNotNull, ordinals }, value = @Derive(@Instances(Show.class)))
 public abstract class Request {
 
   /**
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import org.derive4j.Data;
+import org.derive4j.Derive;
+import org.derive4j.Make;
+
+/**
+ * A market data record, whose fields are all primitives or enums so that a fixed size binary layout and a flyweight
+ * view over a {@link java.nio.ByteBuffer} can be derived (see {@link Make#flyweight}).
+ */
+@Data(@Derive(make = { Make.constructors, Make.lazyConstructor, Make.casesMatching, Make.caseOfMatching,
+    Make.getters, Make.flyweight }))
+public abstract class Tick {
+
+  public enum Side {
+    BUY, SELL
+  }
+
+  interface Cases<R> {
+    R Trade(long timestamp, double price, int quantity, Side side);
+
+    R Quote(long timestamp, double bid, double ask);
+
+    R Halt(long timestamp, boolean resumable);
+  }
+
+  public abstract <R> R match(Cases<R> cases);
+
+  @Override
+  public abstract boolean equals(Object obj);
+
+  @Override
+  public abstract int hashCode();
+
+  @Override
+  public abstract String toString();
+}
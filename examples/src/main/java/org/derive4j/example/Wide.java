@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.example;
+
+import org.derive4j.Data;
+
+/**
+ * Constructors with more fields, and more recursive fields, than fit in the initial stack of the derived equals,
+ * hashCode and toString.
+ */
+@Data
+public abstract class Wide {
+
+  public interface Cases<R> {
+    R leaf();
+
+    R wide(int a, int b, int c, int d, int e, int f, int g, int h, Wide next);
+
+    R branch(Wide a, Wide b, Wide c, Wide d, Wide e, Wide f, Wide g, Wide h, Wide i, Wide j, Wide k, Wide l, Wide m,
+        Wide n, Wide o, Wide p, Wide q, Wide r, Wide s, Wide t);
+  }
+
+  Wide() {
+  }
+
+  public abstract <R> R match(Cases<R> cases);
+
+  @Override
+  public abstract boolean equals(Object obj);
+
+  @Override
+  public abstract int hashCode();
+
+  @Override
+  public abstract String toString();
+
+}
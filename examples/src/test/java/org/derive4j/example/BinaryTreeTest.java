@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import org.junit.Test;
+
+import static org.derive4j.example.BinaryTrees.getValue;
+import static org.derive4j.example.BinaryTrees.lazy;
+import static org.derive4j.example.BinaryTrees.leaf;
+import static org.derive4j.example.BinaryTrees.node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryTreeTest {
+
+  static List<Integer> values(Iterator<BinaryTree<Integer>> nodes) {
+    List<Integer> values = new ArrayList<>();
+    nodes.forEachRemaining(node -> getValue(node).ifPresent(values::add));
+    return values;
+  }
+
+  @Test
+  public void iteratorsTraverseInPreOrderAndInOrder() {
+    BinaryTree<Integer> tree = leaf();
+    for (int value : new int[] { 4, 2, 6, 1, 3, 5, 7 }) {
+      tree = BinaryTree.insert(value, tree);
+    }
+    BinaryTree<Integer> strictTree = tree;
+    assertEquals(Arrays.asList(4, 2, 1, 3, 6, 5, 7), values(BinaryTrees.preOrderIterator(tree)));
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), values(BinaryTrees.inOrderIterator(tree)));
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), values(BinaryTrees.inOrderIterator(lazy(() -> strictTree))));
+  }
+
+  @Test
+  public void iteratorsAreStackSafe() {
+    BinaryTree<Integer> tree = leaf();
+    for (int i = 1000000; i > 0; i--) {
+      tree = node(leaf(), i, tree);
+    }
+    assertEquals(IntStream.rangeClosed(1, 1000000).boxed().collect(Collectors.toList()),
+        values(BinaryTrees.inOrderIterator(tree)));
+  }
+
+  @Test
+  public void parallelStreamsKeepTheTraversalOrder() {
+    BinaryTree<Integer> tree = leaf();
+    for (int value : IntStream.range(0, 100000).map(i -> (i * 7919) % 100000).toArray()) {
+      tree = BinaryTree.insert(value, tree);
+    }
+    List<Integer> sorted = StreamSupport.stream(BinaryTrees.inOrderSpliterator(tree), true)
+        .map(node -> getValue(node).orElse(-1))
+        .filter(value -> value >= 0)
+        .collect(Collectors.toList());
+    assertEquals(IntStream.range(0, 100000).boxed().collect(Collectors.toList()), sorted);
+    assertEquals(100000, StreamSupport.stream(BinaryTrees.preOrderSpliterator(tree), true)
+        .filter(node -> getValue(node).isPresent())
+        .count());
+  }
+
+  @Test
+  public void iteratorsReturnTheTraversedValues() {
+    BinaryTree<Integer> strictTree = node(leaf(), 1, leaf());
+    BinaryTree<Integer> lazyTree = lazy(() -> strictTree);
+    assertSame(lazyTree, BinaryTrees.preOrderIterator(lazyTree).next());
+    Iterator<BinaryTree<Integer>> inOrder = BinaryTrees.inOrderIterator(lazyTree);
+    inOrder.next();
+    assertSame(lazyTree, inOrder.next());
+  }
+
+  @Test
+  public void spliteratorsSplitTheirSizeEstimate() {
+    BinaryTree<Integer> tree = leaf();
+    for (int value : new int[] { 4, 2, 6, 1, 3, 5, 7 }) {
+      tree = BinaryTree.insert(value, tree);
+    }
+    Spliterator<BinaryTree<Integer>> spliterator = BinaryTrees.preOrderSpliterator(tree);
+    // the root is consumed, so that both of its sub-trees are on the stack:
+    assertTrue(spliterator.tryAdvance(node -> {
+    }));
+    long estimate = spliterator.estimateSize();
+    Spliterator<BinaryTree<Integer>> prefix = spliterator.trySplit();
+    assertNotNull(prefix);
+    assertEquals(estimate, prefix.estimateSize() + spliterator.estimateSize());
+    assertEquals(estimate / 2, prefix.estimateSize());
+  }
+}
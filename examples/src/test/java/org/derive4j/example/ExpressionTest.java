@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import fj.F;
+import fj.data.Option;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import org.junit.Test;
+
+import static org.derive4j.example.Expressions.Add;
+import static org.derive4j.example.Expressions.Const;
+import static org.derive4j.example.Expressions.Mult;
+import static org.derive4j.example.Expressions.Neg;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExpressionTest {
+
+  @Test
+  public void strictCataAgreesWithCata() {
+    Expression expression = Add(Const(1), Mult(Const(2), Neg(Mult(Const(3), Const(3)))));
+    assertEquals(Expression.eval(expression), Expression.strictEval.f(expression));
+    assertEquals("(1 + (2 * -(3 * 3)))", Expressions.<String>strictCata(String::valueOf,
+        (left, right) -> "(" + left + " + " + right + ")",
+        (left, right) -> "(" + left + " * " + right + ")",
+        expr -> "-" + expr).f(expression));
+  }
+
+  @Test
+  public void strictCataIsStackSafe() {
+    Expression expression = Const(0);
+    for (int i = 1; i <= 1000000; i++) {
+      expression = Add(Const(1), Neg(Neg(expression)));
+    }
+    assertEquals(1000000, (int) Expression.strictEval.f(expression));
+  }
+
+  @Test
+  public void parallelCataAgreesWithStrictCata() {
+    Expression expression = Const(1);
+    for (int i = 0; i < 16; i++) {
+      expression = (i % 2 == 0) ? Add(expression, Neg(expression)) : Mult(expression, Add(Const(i), expression));
+    }
+    Expression deepExpression = Neg(expression);
+    for (int i = 0; i < 100000; i++) {
+      deepExpression = Add(Const(1), deepExpression);
+    }
+    for (int threshold : new int[] { 0, 1, 8, 64 }) {
+      F<Expression, Integer> parallelEval = Expressions.parallelCata(value -> value, (left, right) -> left + right,
+          (left, right) -> left * right, expr -> -expr, threshold, ForkJoinPool.commonPool());
+      assertEquals(Expression.strictEval.f(expression), parallelEval.f(expression));
+      assertEquals(Expression.strictEval.f(deepExpression), parallelEval.f(deepExpression));
+    }
+  }
+
+  @Test
+  public void primitiveFieldsAreNotBoxed() {
+    Expressions.ConstMapper<Integer> twice = value -> value * 2;
+    assertEquals(42, (int) Expressions.caseOf(Const(21)).Const(twice).otherwise(() -> 0));
+    assertTrue(Expressions.expressionEqual().eq(Const(42), Expressions.modValue(value -> value * 2).f(Const(21))));
+    assertTrue(Expressions.expressionEqual().eq(Const(7), Expressions.setValue(7).f(Const(21))));
+    assertTrue(Expressions.expressionEqual().eq(Neg(Const(21)), Expressions.setValue(7).f(Neg(Const(21)))));
+  }
+
+  @Test
+  public void gettersReadStrictAndLazyValues() {
+    Expression add = Add(Const(1), Const(2));
+    assertEquals(Option.some(1), Expressions.getValue(Const(1)));
+    assertEquals(Option.none(), Expressions.getValue(add));
+    assertTrue(Expressions.getLeft(Expressions.lazy(() -> add)).isSome());
+    assertEquals(Option.none(), Expressions.getExpr(Expressions.lazy(() -> add)));
+  }
+
+  @Test
+  public void strictCataWorksOnLazyValues() {
+    List<Integer> range = List.range(0, 1000000);
+    Function<List<Integer>, Long> sum = Lists.strictCata(() -> 0L, (head, tail) -> head + tail);
+    assertEquals(499999500000L, (long) sum.apply(range));
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import java.lang.ref.WeakReference;
+import org.junit.Test;
+
+import static org.derive4j.example.Formulas.And;
+import static org.derive4j.example.Formulas.Not;
+import static org.derive4j.example.Formulas.Or;
+import static org.derive4j.example.Formulas.Var;
+import static org.derive4j.example.Formulas.lazy;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FormulaTest {
+
+  @Test
+  public void equalValuesShareOneInstance() {
+    assertSame(And(Var("a"), Not(Var("b"))), And(Var("a"), Not(Var("b"))));
+    assertEquals(Or(Var("a"), Var("b")), Or(Var(new String("a")), Var("b")));
+    assertNotEquals(Or(Var("a"), Var("b")), Or(Var("b"), Var("a")));
+    assertNotEquals(Or(Var("a"), Var("b")), And(Var("a"), Var("b")));
+  }
+
+  @Test
+  public void internedValuesAreStillEqualToLazyOnes() {
+    Formula f = And(Var("a"), Var("b"));
+    assertEquals(f, lazy(() -> And(Var("a"), Var("b"))));
+    assertEquals(lazy(() -> And(Var("a"), Var("b"))), f);
+    assertEquals(Not(f), Not(lazy(() -> And(Var("a"), Var("b")))));
+  }
+
+  @Test
+  public void deeplySharedValuesAreBuiltInLinearTime() {
+    Formula f = Var("x");
+    Formula g = Var("x");
+    for (int i = 0; i < 10000; i++) {
+      f = And(f, f);
+      g = And(g, g);
+    }
+    assertSame(f, g);
+  }
+
+  @Test
+  public void unreachableValuesAreCleared() throws InterruptedException {
+    WeakReference<Formula> ref = new WeakReference<>(Not(Var("unreachable")));
+    for (int i = 0; (i < 100) && (ref.get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(ref.get());
+  }
+
+}
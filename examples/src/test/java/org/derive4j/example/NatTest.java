@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.derive4j.example.Nats.lazy;
+import static org.derive4j.example.Nats.succ;
+import static org.derive4j.example.Nats.zero;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NatTest {
+
+  static final Nat.Cases<Nat> pred = Nats.cases(() -> null, p -> p);
+
+  @Test
+  public void lazyValuesBehaveAsTheirEvaluation() {
+    Nat two = lazy(() -> succ(lazy(() -> succ(zero()))));
+    assertEquals(succ(succ(zero())), two);
+    assertEquals(succ(succ(zero())).hashCode(), two.hashCode());
+    assertEquals(succ(succ(zero())).toString(), two.toString());
+  }
+
+  @Test
+  public void nestedLazyChainsAreCollapsedWithoutRecursion() {
+    Nat n = zero();
+    for (int i = 0; i < 100000; i++) {
+      Nat next = n;
+      n = lazy(() -> next);
+    }
+    assertNull(n.match(pred));
+  }
+
+  @Test
+  public void derivedMethodsAreStackSafe() {
+    Nat n = zero();
+    Nat m = zero();
+    for (int i = 0; i < 1000000; i++) {
+      Nat pred = m;
+      n = succ(n);
+      m = ((i % 2) == 0) ? succ(m) : lazy(() -> succ(pred));
+    }
+    assertEquals(n, m);
+    assertNotEquals(n, succ(m));
+    assertEquals(n.hashCode(), m.hashCode());
+    assertEquals(n.toString(), m.toString());
+    assertEquals(1000000 * "succ()".length() + "zero()".length(), n.toString().length());
+  }
+
+  @Test
+  public void stackSafeMethodsGiveTheRecursiveResults() {
+    assertEquals(29 + (29 + 23), succ(succ(zero())).hashCode());
+    assertEquals("succ(succ(zero()))", succ(succ(zero())).toString());
+    assertEquals("succ(succ(zero()))", lazy(() -> succ(lazy(() -> succ(zero())))).toString());
+  }
+
+  @Test
+  public void appendToIsBoundedOnInfiniteValues() throws IOException {
+    Nat[] infinity = new Nat[1];
+    infinity[0] = lazy(() -> succ(infinity[0]));
+    assertEquals("succ(succ(...))", Nats.appendTo(infinity[0], new StringBuilder(), 2, 100).toString());
+    assertEquals("succ(succ(suc...", Nats.appendTo(infinity[0], new StringBuilder(), 100, 13).toString());
+    assertEquals("succ(zero())", Nats.appendTo(succ(zero()), new StringBuilder(), 2, 12).toString());
+  }
+
+  @Test
+  public void concurrentForcingPublishesASingleEvaluation() throws Exception {
+    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (int round = 0; round < 1000; round++) {
+        AtomicInteger evaluations = new AtomicInteger();
+        Nat n = lazy(() -> {
+          evaluations.incrementAndGet();
+          return succ(lazy(Nats::zero));
+        });
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        List<Future<Nat>> preds = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+          preds.add(executor.submit((Callable<Nat>) () -> {
+            barrier.await();
+            return n.match(pred);
+          }));
+        }
+        Nat first = preds.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<Nat> p : preds) {
+          assertSame(first, p.get(10, TimeUnit.SECONDS));
+        }
+        assertSame(first, n.match(pred));
+        assertTrue(evaluations.get() >= 1);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
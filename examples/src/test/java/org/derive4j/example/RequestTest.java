@@ -27,6 +27,9 @@ package org.derive4j.example;
 
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import fj.F;
+import java.lang.management.ManagementFactory;
+import org.junit.Assume;
 import org.junit.Test;
 
 import static org.derive4j.example.GuavaRequests.*;
@@ -43,6 +46,94 @@ public class RequestTest {
     assertThat(getPath(gets.get(0)), is("/foo"));
   }
 
+  @Test
+  public void testOrdinal() {
+    Request delete = new Request() {
+      @Override
+      public <X> X match(Cases<X> cases) {
+        return cases.DELETE("/foo");
+      }
+
+      @Override
+      public int hashCode() {
+        return 0;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+        return false;
+      }
+
+      @Override
+      public String toString() {
+        return "DELETE(/foo)";
+      }
+    };
+    assertThat(Requests.ordinal(Requests.GET("/foo")), is(0));
+    assertThat(Requests.ordinal(Requests.lazy(() -> Requests.PUT("/foo", "{}"))), is(2));
+    assertThat(Requests.ordinal(delete), is(1));
+    assertTrue(Requests.isPOST(Requests.POST("/foo", "{}")));
+    assertFalse(Requests.isPOST(delete));
+  }
+
+  @Test
+  public void testSwitchMatching() {
+    F<Request, String> method = Requests.cases()
+        .GET(path -> "GET")
+        .DELETE(path -> "DELETE")
+        .PUT((path, body) -> "PUT")
+        .POST((path, body) -> "POST");
+    assertThat(method.f(Requests.PUT("/foo", "{}")), is("PUT"));
+    assertThat(method.f(Requests.lazy(() -> Requests.DELETE("/foo"))), is("DELETE"));
+    assertThat(Requests.caseOf(Requests.POST("/foo", "{}")).POST((path, body) -> body).otherwise_(""), is("{}"));
+    assertThat(Requests.caseOf(Requests.GET("/foo")).POST((path, body) -> body).otherwise_(""), is(""));
+  }
+
+  @Test
+  public void testEquals() {
+    Request[] requests = { Requests.GET("/foo"), Requests.DELETE("/foo"), Requests.PUT("/foo", "{}"),
+        Requests.POST("/foo", "{}") };
+    Request[] copies = { Requests.GET(new String("/foo")), Requests.DELETE(new String("/foo")),
+        Requests.lazy(() -> Requests.PUT("/foo", "{}")), Requests.POST("/foo", new String("{}")) };
+    for (int i = 0; i < requests.length; i++) {
+      for (int j = 0; j < copies.length; j++) {
+        assertThat(requests[i].equals(copies[j]), is(i == j));
+        assertThat(copies[j].equals(requests[i]), is(i == j));
+      }
+    }
+  }
+
+  @Test
+  public void testEqualsDoesNotAllocate() {
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+    Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+    Request[] requests = { Requests.GET("/foo"), Requests.DELETE("/foo"), Requests.PUT("/foo", "{}"),
+        Requests.POST("/foo", "{}") };
+    Request[] copies = { Requests.GET(new String("/foo")), Requests.DELETE(new String("/foo")),
+        Requests.PUT(new String("/foo"), "{}"), Requests.POST("/foo", new String("{}")) };
+
+    // not warmed up on purpose: the interpreter does not elide any allocation.
+    int ops = 100000;
+    int equalities = 0;
+    long threadId = Thread.currentThread().getId();
+    long allocated = allocations.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ops; i++) {
+      if (requests[i & 3].equals(copies[(i >> 2) & 3])) {
+        equalities++;
+      }
+    }
+    allocated = allocations.getThreadAllocatedBytes(threadId) - allocated;
+
+    assertThat(equalities, is(ops / 4));
+    // Any object takes at least 16 bytes, so allocating in even one call out of 16 would exceed ops bytes in total.
+    // The threshold is not 0 because the JVM itself may allocate a few hundred bytes on this thread during the loop
+    // (eg. while compiling it), and getThreadAllocatedBytes may allocate its own arrays on JDK 8.
+    assertTrue("bytes allocated: " + allocated, allocated < ops);
+  }
+
   @Test
   public void testGuavaOptional() {
     assertTrue(getBody(POST("/foo", "{}")).isPresent());
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.derive4j.example.Shapes.Circle;
+import static org.derive4j.example.Shapes.Polygon;
+import static org.derive4j.example.Shapes.Rectangle;
+import static org.derive4j.example.Shapes.Square;
+import static org.derive4j.example.Shapes.lazy;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShapeTest {
+
+  @Test
+  public void constructorMapsAggregatePerConstructor() {
+    Shape[] shapes = { Circle(1), Rectangle(2, 3), Square(4), Circle(2), lazy(() -> Circle(3)) };
+    Shapes.ConstructorMap<Double> radiusSums = new Shapes.ConstructorMap<>();
+    Shapes.ConstructorSet kinds = Shapes.ConstructorSet.noneOf();
+    for (Shape shape : shapes) {
+      Shapes.Constructor constructor = Shapes.constructorOf(shape);
+      kinds.add(constructor);
+      if (constructor == Shapes.Constructor.Circle) {
+        radiusSums.put(constructor, radiusSums.getOrDefault(constructor, 0.0) + Shapes.matchDouble(shape,
+            radius -> radius, (width, height) -> 0, side -> 0, (xs, ys) -> 0));
+      }
+    }
+    assertEquals("[Circle, Rectangle, Square]", kinds.toString());
+    assertFalse(kinds.contains(Shapes.Constructor.Polygon));
+    assertEquals(6.0, radiusSums.get(Shapes.Constructor.Circle), 0);
+    assertEquals(1, radiusSums.size());
+    assertEquals("{Circle=6.0}", radiusSums.toString());
+    assertTrue(kinds.remove(Shapes.Constructor.Square));
+    assertEquals(2, kinds.size());
+    assertEquals(4, Shapes.ConstructorSet.allOf().size());
+  }
+
+  @Test
+  public void batchMapPreservesInputOrder() {
+    List<Shape> shapes = Arrays.asList(Circle(1), Rectangle(2, 3), Square(4), Circle(2),
+        Polygon(new double[] { 0, 4, 0 }, new double[] { 0, 0, 3 }), lazy(() -> Rectangle(5, 6)));
+    Shapes.Partition partition = Shapes.partition(shapes);
+    assertEquals(6, partition.size());
+    assertEquals(2, partition.CircleCount());
+    assertEquals(2, partition.RectangleCount());
+    assertEquals(1, partition.SquareCount());
+    assertEquals(1, partition.PolygonCount());
+    assertEquals(2.0, partition.CircleRadius(1), 0);
+    assertEquals(6.0, partition.RectangleHeight(1), 0);
+    List<String> described = partition.map(
+        radius -> "Circle " + radius,
+        (width, height) -> "Rectangle " + width + 'x' + height,
+        side -> "Square " + side,
+        (xs, ys) -> "Polygon " + xs.length);
+    assertEquals(Arrays.asList("Circle 1.0", "Rectangle 2.0x3.0", "Square 4.0", "Circle 2.0", "Polygon 3",
+        "Rectangle 5.0x6.0"), described);
+  }
+
+  @Test
+  public void columnsStoreRowsInInsertionOrder() {
+    Shapes.Columns columns = new Shapes.Columns().Circle(1)
+        .Rectangle(2, 3)
+        .add(lazy(() -> Square(4)))
+        .add(Polygon(new double[] { 0, 4, 0 }, new double[] { 0, 0, 3 }));
+    for (int i = 0; i < 20; i++) {
+      columns.Circle(i);
+    }
+    assertEquals(24, columns.size());
+    List<String> described = columns.map(
+        radius -> "Circle " + radius,
+        (width, height) -> "Rectangle " + width + 'x' + height,
+        side -> "Square " + side,
+        (xs, ys) -> "Polygon " + xs.length);
+    for (int row = 0; row < columns.size(); row++) {
+      assertEquals(Shapes.caseOf(columns.get(row))
+          .Circle(radius -> "Circle " + radius)
+          .Rectangle((width, height) -> "Rectangle " + width + 'x' + height)
+          .Square(side -> "Square " + side)
+          .Polygon((xs, ys) -> "Polygon " + xs.length), described.get(row));
+    }
+    assertEquals(Arrays.asList("Circle 1.0", "Rectangle 2.0x3.0", "Square 4.0", "Polygon 3"), described.subList(0, 4));
+    assertEquals("Circle 19.0", described.get(23));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void columnsRejectRowsOutOfRange() {
+    new Shapes.Columns().Square(1).get(1);
+  }
+
+  @Test
+  public void primitiveMatchingAgreesWithCases() {
+    Shape[] shapes = { Circle(1), Rectangle(2, 3), Square(4), Polygon(new double[] { 0, 4, 0 }, new double[] { 0, 0, 3 }),
+        lazy(() -> Rectangle(5, 6)) };
+    for (Shape shape : shapes) {
+      assertEquals(Shapes.caseOf(shape)
+          .Circle(radius -> radius)
+          .Rectangle((width, height) -> width * height)
+          .Square(side -> side * side)
+          .Polygon((xs, ys) -> xs[1] * ys[2] / 2), Shapes.matchDouble(shape,
+          radius -> radius,
+          (width, height) -> width * height,
+          side -> side * side,
+          (xs, ys) -> xs[1] * ys[2] / 2), 0);
+    }
+  }
+
+  @Test
+  public void primitiveMatchingOnLazyValues() {
+    Shape square = lazy(() -> Square(3));
+    assertEquals(Double.hashCode(3), Shapes.matchInt(square, radius -> 0, (width, height) -> 0,
+        side -> Double.hashCode(side), (xs, ys) -> 0));
+    assertTrue(Shapes.matchBoolean(square, radius -> false, (width, height) -> width == height, side -> true,
+        (xs, ys) -> false));
+    assertFalse(Shapes.matchBoolean(Circle(3), radius -> false, (width, height) -> width == height, side -> true,
+        (xs, ys) -> false));
+    assertEquals(3L, Shapes.matchLong(Polygon(new double[3], new double[3]), radius -> 1L, (width, height) -> 4L,
+        side -> 4L, (xs, ys) -> xs.length));
+  }
+
+  @Test
+  public void contextMatchingDoesNotAllocate() {
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threadMXBean;
+    Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+    Shape[] shapes = { Circle(1), Rectangle(2, 3), Square(4), Polygon(new double[] { 0, 4, 0 }, new double[] { 0, 0, 3 }) };
+    Double minArea = 5.0;
+    countLargerThan(shapes, minArea); // links the lambdas
+
+    int ops = 100000;
+    long threadId = Thread.currentThread().getId();
+    long allocated = allocations.getThreadAllocatedBytes(threadId);
+    int count = 0;
+    for (int i = 0; i < ops; i++) {
+      count += countLargerThan(shapes, minArea);
+    }
+    allocated = allocations.getThreadAllocatedBytes(threadId) - allocated;
+
+    assertEquals(3 * ops, count);
+    assertEquals("bytes/op", 0L, allocated / ops);
+  }
+
+  private static int countLargerThan(Shape[] shapes, Double minArea) {
+    int count = 0;
+    for (Shape shape : shapes) {
+      if (Shapes.matchWith(shape, minArea,
+          (min, radius) -> (Math.PI * radius * radius) > min,
+          (min, width, height) -> (width * height) > min,
+          (min, side) -> (side * side) > min,
+          (min, xs, ys) -> MatchBench.polygonArea(xs, ys) > min)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+}
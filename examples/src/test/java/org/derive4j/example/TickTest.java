@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.derive4j.example;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static org.derive4j.example.Ticks.Halt;
+import static org.derive4j.example.Ticks.Quote;
+import static org.derive4j.example.Ticks.Trade;
+import static org.derive4j.example.Ticks.lazy;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TickTest {
+
+  @Test
+  public void flyweightMatchesRecordsInPlace() {
+    Tick[] ticks = { Trade(1L, 10.5, 100, Tick.Side.BUY), Quote(2L, 10.25, 10.75),
+        lazy(() -> Trade(3L, 11, 50, Tick.Side.SELL)), Halt(4L, true) };
+    ByteBuffer buffer = ByteBuffer.allocateDirect(ticks.length * Ticks.Flyweight.BYTES);
+    int offset = 0;
+    for (Tick tick : ticks) {
+      offset = Ticks.Flyweight.write(tick, buffer, offset);
+    }
+    assertEquals(buffer.capacity(), offset);
+
+    Ticks.Flyweight flyweight = new Ticks.Flyweight(buffer);
+    double total = 0;
+    for (int i = 0; i < ticks.length; i++) {
+      flyweight.moveTo(i * Ticks.Flyweight.BYTES);
+      total += Ticks.caseOf(flyweight)
+          .Trade((timestamp, price, quantity, side) -> (side == Tick.Side.BUY) ? (price * quantity) : (-price * quantity))
+          .otherwise_(0.0);
+      assertEquals(ticks[i], flyweight.copy());
+      assertTrue(flyweight.equals(ticks[i]));
+      assertEquals(ticks[i].toString(), flyweight.toString());
+    }
+    assertEquals(10.5 * 100 - 11 * 50, total, 0);
+    assertTrue(Ticks.getTimestamp(flyweight.moveTo(3 * Ticks.Flyweight.BYTES)) == 4L);
+  }
+
+  @Test
+  public void flyweightWritersDoNotNeedValues() {
+    ByteBuffer buffer = ByteBuffer.allocate(2 * Ticks.Flyweight.BYTES);
+    int offset = Ticks.Flyweight.writeQuote(buffer, 0, 7L, 1.5, 2.5);
+    Ticks.Flyweight.writeHalt(buffer, offset, 8L, false);
+    assertEquals(Quote(7L, 1.5, 2.5), new Ticks.Flyweight(buffer).copy());
+    assertEquals(Halt(8L, false), new Ticks.Flyweight(buffer).moveTo(offset).copy());
+  }
+}
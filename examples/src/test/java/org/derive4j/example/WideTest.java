@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *  * Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *  * Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+package org.derive4j.example;
+
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.derive4j.example.Wides.branch;
+import static org.derive4j.example.Wides.leaf;
+import static org.derive4j.example.Wides.wide;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class WideTest {
+
+  @Test
+  public void equalsAndHashCodeOfManyRecursiveFields() {
+    assertEquals(tree(2, leaf()), tree(2, leaf()));
+    assertEquals(tree(2, leaf()).hashCode(), tree(2, leaf()).hashCode());
+    assertNotEquals(tree(2, leaf()), tree(2, wide(1, 2, 3, 4, 5, 6, 7, 8, leaf())));
+  }
+
+  @Test
+  public void toStringOfManyFields() {
+    assertEquals("wide(1, 2, 3, 4, 5, 6, 7, 8, wide(1, 2, 3, 4, 5, 6, 7, 8, leaf()))",
+        wide(1, 2, 3, 4, 5, 6, 7, 8, wide(1, 2, 3, 4, 5, 6, 7, 8, leaf())).toString());
+    assertEquals("branch(" + String.join(", ", Collections.nCopies(20, "leaf()")) + ')', tree(1, leaf()).toString());
+  }
+
+  private static Wide tree(int depth, Wide last) {
+    if (depth == 0) {
+      return last;
+    }
+    return branch(tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()),
+        tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()),
+        tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()),
+        tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()),
+        tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, leaf()), tree(depth - 1, last));
+  }
+}
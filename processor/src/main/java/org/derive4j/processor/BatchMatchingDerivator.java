@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataArgument;
+import org.derive4j.processor.api.model.DataConstructor;
+
+import static org.derive4j.processor.api.DeriveResult.result;
+
+/**
+ * Derives a {@code partition} function that destructures a batch of values into per-constructor arrays of fields, and
+ * a batch {@code map} over the partition that runs each constructor mapper on its own homogeneous slice (so that each
+ * loop calls a single, monomorphic, mapper) before putting the results back in the order of the batch.
+ */
+final class BatchMatchingDerivator implements Derivator {
+
+  private static final String PARTITION = "Partition";
+
+  private final DeriveUtils                deriveUtils;
+  private final MapperDerivator            mapperDerivator;
+  private final StrictConstructorDerivator strictConstructorDerivator;
+
+  BatchMatchingDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+    mapperDerivator = new MapperDerivator(deriveUtils);
+    strictConstructorDerivator = new StrictConstructorDerivator(deriveUtils);
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    if ((adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.ENUM) || (constructors.size() < 2)
+        || constructors.stream().anyMatch(dc -> !dc.typeRestrictions().isEmpty())) {
+      return result(DerivedCodeSpec.none());
+    }
+
+    List<TypeVariableName> typeVariables = adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    TypeName partitionType = Utils.typeName(adt.deriveConfig().targetClass().className().nestedClass(PARTITION),
+        typeVariables.stream().map(tv -> tv));
+    String arg = Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName());
+
+    MethodSpec partition = MethodSpec.methodBuilder("partition")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(typeVariables)
+        .addParameter(ParameterizedTypeName.get(ClassName.get(Iterable.class), WildcardTypeName.subtypeOf(adtType)),
+            arg + "s")
+        .returns(partitionType)
+        .addStatement("$T partition = new $L$L()", partitionType, PARTITION, typeVariables.isEmpty() ? "" : "<>")
+        .beginControlFlow("for ($T $L : $Ls)", adtType, arg, arg)
+        .addStatement("partition.add($L)", arg)
+        .endControlFlow()
+        .addStatement("return partition")
+        .build();
+
+    return result(DerivedCodeSpec.codeSpec(partitionSpec(adt, constructors, typeVariables, adtType, partitionType,
+        arg), partition));
+  }
+
+  private TypeSpec partitionSpec(AlgebraicDataType adt, List<DataConstructor> constructors,
+      List<TypeVariableName> typeVariables, TypeName adtType, TypeName partitionType, String arg) {
+
+    TypeSpec.Builder partition = TypeSpec.classBuilder(PARTITION)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .addTypeVariables(typeVariables)
+        .addField(FieldSpec.builder(TypeName.INT, "size", Modifier.PRIVATE).build())
+        .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+    AnnotationSpec unchecked = AnnotationSpec.builder(SuppressWarnings.class)
+        .addMember("value", "$S", "unchecked")
+        .build();
+
+    for (DataConstructor dc : constructors) {
+      String indices = dc.name() + "Indices";
+      String count = dc.name() + "Count";
+      partition.addField(FieldSpec.builder(TypeName.INT, count, Modifier.PRIVATE).build())
+          .addField(FieldSpec.builder(int[].class, indices, Modifier.PRIVATE).initializer("new int[0]").build());
+
+      // appends the fields of a value to the arrays of its constructor:
+      MethodSpec.Builder append = MethodSpec.methodBuilder(dc.name())
+          .addModifiers(Modifier.PRIVATE)
+          .returns(partitionType)
+          .beginControlFlow("if ($L == $L.length)", count, indices)
+          .addStatement("int capacity = $T.max(8, $L * 2)", Math.class, count)
+          .addStatement("$1L = $2T.copyOf($1L, capacity)", indices, Arrays.class);
+      for (DataArgument da : dc.arguments()) {
+        String values = fieldArray(dc, da);
+        TypeName elementType = Utils.arrayElementType(da.type(), deriveUtils.types());
+        partition.addField(FieldSpec.builder(ArrayTypeName.of(elementType), values, Modifier.PRIVATE)
+            .initializer(Utils.newArray(elementType, "0"))
+            .build());
+        append.addParameter(TypeName.get(da.type()), da.fieldName())
+            .addStatement("$1L = $2T.copyOf($1L, capacity)", values, Arrays.class);
+
+        MethodSpec.Builder accessor = MethodSpec.methodBuilder(fieldAccessor(dc, da))
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(TypeName.INT, "index")
+            .returns(TypeName.get(da.type()));
+        if (elementType.equals(TypeName.get(da.type()))) {
+          accessor.addStatement("return $L[index]", values);
+        } else {
+          accessor.addAnnotation(unchecked).addStatement("return ($T) $L[index]", TypeName.get(da.type()), values);
+        }
+        partition.addMethod(accessor.build());
+      }
+      append.endControlFlow().addStatement("$L[$L] = size++", indices, count);
+      for (DataArgument da : dc.arguments()) {
+        append.addStatement("$L[$L] = $L", fieldArray(dc, da), count, da.fieldName());
+      }
+      partition.addMethod(append.addStatement("$L++", count).addStatement("return this").build())
+          .addMethod(MethodSpec.methodBuilder(count)
+              .addModifiers(Modifier.PUBLIC)
+              .returns(TypeName.INT)
+              .addStatement("return $L", count)
+              .build());
+    }
+
+    return partition.addMethod(MethodSpec.methodBuilder("size")
+        .addModifiers(Modifier.PUBLIC)
+        .returns(TypeName.INT)
+        .addStatement("return size")
+        .build())
+        .addMethod(addMethod(adt, constructors, adtType, arg))
+        .addMethod(mapMethod(adt, constructors, unchecked))
+        .build();
+  }
+
+  private MethodSpec addMethod(AlgebraicDataType adt, List<DataConstructor> constructors, TypeName adtType,
+      String arg) {
+
+    // values that are not built by the generated constructors (eg. lazy ones) are destructured by a visitor:
+    CodeBlock match = CodeBlock.builder()
+        .addStatement("$L.$L($L)", arg, adt.matchMethod().element().getSimpleName(),
+            strictConstructorDerivator.constructorsVisitor(adt, arg,
+                deriveUtils.elements().getTypeElement(Object.class.getName()).asType(),
+                (dc, args) -> CodeBlock.of("$L.this.$L($L)", PARTITION, dc.name(), args)))
+        .build();
+
+    MethodSpec.Builder add = MethodSpec.methodBuilder("add").addModifiers(Modifier.PRIVATE).addParameter(adtType, arg);
+    if (!StrictConstructorDerivator.hasOrdinals(adt)) {
+      return add.addCode(match).build();
+    }
+
+    add.beginControlFlow("switch ($T._ordinal($L))", adt.deriveConfig().targetClass().className(), arg);
+    for (DataConstructor dc : constructors) {
+      TypeName constructorType = Utils.typeName(
+          ClassName.bestGuess(StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc)),
+          adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get));
+      add.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+          .addStatement("$L($L)", dc.name(), dc.arguments()
+              .stream()
+              .map(da -> CodeBlock.of("(($T) $L).$L", constructorType, arg, da.fieldName()))
+              .collect(CodeBlock.joining(", ")))
+          .addStatement("break")
+          .addCode("$<");
+    }
+    return add.addCode("default:\n$>").addCode(match).addCode("$<").endControlFlow().build();
+  }
+
+  private MethodSpec mapMethod(AlgebraicDataType adt, List<DataConstructor> constructors, AnnotationSpec unchecked) {
+
+    TypeVariableName r = TypeVariableName.get(adt.matchMethod().returnTypeVariable());
+    NameAllocator nameAllocator = new NameAllocator();
+    constructors.forEach(dc -> nameAllocator.newName(MapperDerivator.mapperFieldName(dc), dc.name() + " mapper"));
+    String results = nameAllocator.newName("results", "results");
+    String i = nameAllocator.newName("i", "i");
+
+    MethodSpec.Builder map = MethodSpec.methodBuilder("map")
+        .addAnnotation(unchecked)
+        .addModifiers(Modifier.PUBLIC)
+        .addTypeVariable(r)
+        .returns(ParameterizedTypeName.get(ClassName.get(List.class), r))
+        .addParameters(constructors.stream()
+            .map(dc -> ParameterSpec.builder(mapperDerivator.mapperTypeName(adt, dc),
+                nameAllocator.get(dc.name() + " mapper")).build())
+            .collect(Collectors.toList()))
+        .addStatement("$T[] $L = new $T[size]", Object.class, results, Object.class);
+
+    for (DataConstructor dc : constructors) {
+      map.beginControlFlow("for (int $1L = 0; $1L < $2L; $1L++)", i, dc.name() + "Count")
+          .addStatement("$L[$LIndices[$L]] = $L.$L($L)", results, dc.name(), i,
+              nameAllocator.get(dc.name() + " mapper"), mapperDerivator.mapperApplyMethod(adt.deriveConfig(), dc),
+              dc.arguments()
+                  .stream()
+                  .map(da -> Utils.arrayElementType(da.type(), deriveUtils.types()).equals(TypeName.get(da.type()))
+                      ? CodeBlock.of("$L[$L]", fieldArray(dc, da), i)
+                      : CodeBlock.of("($T) $L[$L]", TypeName.get(da.type()), fieldArray(dc, da), i))
+                  .collect(CodeBlock.joining(", ")))
+          .endControlFlow();
+    }
+
+    return map.addStatement("return ($T) $T.asList($L)", ParameterizedTypeName.get(ClassName.get(List.class), r),
+        Arrays.class, results).build();
+  }
+
+  private static String fieldArray(DataConstructor dc, DataArgument da) {
+    return dc.name() + Utils.capitalize(da.fieldName()) + 's';
+  }
+
+  private static String fieldAccessor(DataConstructor dc, DataArgument da) {
+    return dc.name() + Utils.capitalize(da.fieldName());
+  }
+}
@@ -48,7 +48,14 @@ final class BuiltinDerivator {
         .getters_(new GettersDerivator(deriveUtils))
         .modifiers_(new ModifiersDerivator(deriveUtils))
         .catamorphism_(new CataDerivator(deriveUtils))
-        .factory_(new FactoryDerivator(deriveUtils));
+        .factory_(new FactoryDerivator(deriveUtils))
+        .primitiveMatching_(new PrimitiveMatchingDerivator(deriveUtils))
+        .contextMatching_(new ContextMatchingDerivator(deriveUtils))
+        .iterators_(new IteratorDerivator(deriveUtils))
+        .constructorMaps_(new ConstructorMapsDerivator(deriveUtils))
+        .batchMatching_(new BatchMatchingDerivator(deriveUtils))
+        .columns_(new ColumnsDerivator(deriveUtils))
+        .flyweight_(new FlyweightDerivator(deriveUtils));
 
     return adt -> traverseResults(
         concat(of(exportDerivator), adt.deriveConfig().makes().stream().map(makeDerivators)).map(d -> d.derive(adt))
@@ -18,17 +18,26 @@
  */
 package org.derive4j.processor;
 
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.NameAllocator;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
@@ -60,6 +69,9 @@ import static org.derive4j.processor.api.model.DataConstructions.caseOf;
 
 final class CataDerivator implements Derivator {
 
+  // public API, not subject to name allocation (that depends on user field names):
+  private static final String STRICT_CATA = "strictCata";
+
   CataDerivator(DeriveUtils utils) {
 
     this.utils = utils;
@@ -76,8 +88,11 @@ final class CataDerivator implements Derivator {
         ? caseOf(adt.dataConstruction())
             .multipleConstructors(MultipleConstructorsSupport.cases()
                 .visitorDispatch((visitorParam, visitorType, constructors) -> visitorDispatchImpl(adt, visitorType,
-                    constructors))
-                .functionsDispatch(dataConstructors -> functionDispatchImpl(adt, dataConstructors)))
+                    constructors).map(cata -> cata.append(strictCata(adt, Optional.of(visitorType), constructors))
+                        .append(parallelCata(adt, Optional.of(visitorType), constructors))))
+                .functionsDispatch(dataConstructors -> functionDispatchImpl(adt, dataConstructors)
+                    .map(cata -> cata.append(strictCata(adt, Optional.empty(), dataConstructors))
+                        .append(parallelCata(adt, Optional.empty(), dataConstructors)))))
             .oneConstructor(
                 dataConstructor -> functionDispatchImpl(adt, Collections.singletonList(dataConstructor)))
             .noConstructor(() -> result(DerivedCodeSpec.none()))
@@ -313,6 +328,274 @@ final class CataDerivator implements Derivator {
     return result(methodSpec(cataMethod).append(cataVisitor(adt, visitorType, constructors)));
   }
 
+  /**
+   * A catamorphism for strict result types, that does not need a delay function: the folded value is unfolded into an
+   * explicit work stack (of values to unfold and of pending constructor applications) and the intermediate results
+   * are kept on a result stack, so that it runs in constant call stack for any depth.
+   */
+  private DerivedCodeSpec strictCata(AlgebraicDataType adt, Optional<DeclaredType> visitorType,
+      List<DataConstructor> constructors) {
+
+    if (constructors.stream().anyMatch(dc -> !dc.typeRestrictions().isEmpty())) {
+      return DerivedCodeSpec.none();
+    }
+
+    NameAllocator nameAllocator = nameAllocator(adt, constructors);
+    nameAllocator.newName("work", "work");
+    nameAllocator.newName("results", "results");
+    nameAllocator.newName("next", "next");
+    nameAllocator.newName("size", "size");
+    nameAllocator.newName("unfold", "unfold");
+    constructors.forEach(dc -> nameAllocator.newName(dc.name() + "Unfold", dc.name() + " unfold"));
+
+    TypeVariableName r = TypeVariableName.get(adt.matchMethod().returnTypeVariable());
+    TypeName objectType = TypeName.get(Object.class);
+    TypeMirror objectTypeMirror = utils.elements().getTypeElement(Object.class.getName()).asType();
+    String work = nameAllocator.get("work");
+    String results = nameAllocator.get("results");
+    String next = nameAllocator.get("next");
+
+    Function<DataConstructor, CodeBlock> unfoldLambda = dc -> {
+      NameAllocator fieldNames = nameAllocator.clone();
+      List<String> fields = dc.arguments()
+          .stream()
+          .map(DataArgument::fieldName)
+          .map(fn -> fieldNames.newName(fn, fn + " field"))
+          .collect(toList());
+      List<Integer> recursiveFields = IntStream.range(0, fields.size())
+          .filter(i -> isSelfReference(adt, dc.arguments().get(i)))
+          .boxed()
+          .collect(toList());
+      String mapperApply = MapperDerivator.mapperFieldName(dc) + '.' + mapperDerivator.mapperApplyMethod(
+          adt.deriveConfig(), dc);
+
+      CodeBlock.Builder lambda = CodeBlock.builder().add("($L) -> {\n$>", Utils.joinStringsAsArguments(fields.stream()));
+      if (recursiveFields.isEmpty()) {
+        lambda.addStatement("$L.add($L($L))", results, mapperApply, Utils.joinStringsAsArguments(fields.stream()));
+      } else {
+        // the pending application, that replaces the results of the recursive fields by the result of the mapper:
+        String size = nameAllocator.get("size");
+        int nbRecursiveFields = recursiveFields.size();
+        CodeBlock.Builder apply = CodeBlock.builder()
+            .add("($T) () -> {\n$>", Runnable.class)
+            .addStatement("int $L = $L.size()", size, results)
+            .addStatement("$1L.set($2L - $3L, $4L($5L))", results, size, nbRecursiveFields, mapperApply,
+                Utils.joinStringsAsArguments(IntStream.range(0, fields.size())
+                    .mapToObj(i -> recursiveFields.contains(i)
+                        ? (results + ".get(" + size + " - " + (nbRecursiveFields - recursiveFields.indexOf(i)) + ')')
+                        : fields.get(i))));
+        for (int i = 1; i < nbRecursiveFields; i++) {
+          apply.addStatement("$L.remove($L - $L)", results, size, i);
+        }
+        lambda.add("$L.add($L);\n", work, apply.add("$<}").build());
+        for (int i = nbRecursiveFields - 1; i >= 0; i--) {
+          lambda.addStatement("$L.add($L)", work, fields.get(recursiveFields.get(i)));
+        }
+      }
+      return lambda.addStatement("return null").add("$<}").build();
+    };
+
+    CodeBlock.Builder body = CodeBlock.builder()
+        .addStatement("$1T<$2T> $3L = new $1T<>()", ArrayList.class, Object.class, work)
+        .addStatement("$1T<$2T> $3L = new $1T<>()", ArrayList.class, r, results);
+
+    CodeBlock unfoldArgs = visitorType.map(vt -> {
+      DeclaredType unfoldType = utils.resolve(vt, tv -> utils.types().isSameType(tv,
+          adt.matchMethod().returnTypeVariable()) ? Optional.of(objectTypeMirror) : Optional.empty());
+      body.add("$T $L = new $L<>($L);\n", TypeName.get(unfoldType), nameAllocator.get("unfold"),
+          lambdaVisitorClassName(vt), constructors.stream().map(unfoldLambda).collect(CodeBlock.joining(",\n")));
+      return CodeBlock.of("$L", nameAllocator.get("unfold"));
+    }).orElseGet(() -> {
+      for (DataConstructor dc : constructors) {
+        DeclaredType unfoldType = utils.resolve(dc.deconstructor().visitorType(), tv -> utils.types().isSameType(tv,
+            adt.matchMethod().returnTypeVariable()) ? Optional.of(objectTypeMirror) : Optional.empty());
+        body.add("$T $L = $L;\n", TypeName.get(unfoldType), nameAllocator.get(dc.name() + " unfold"),
+            unfoldLambda.apply(dc));
+      }
+      return constructors.stream()
+          .map(dc -> CodeBlock.of("$L", nameAllocator.get(dc.name() + " unfold")))
+          .collect(CodeBlock.joining(", "));
+    });
+
+    body.addStatement("$L.add($L)", work, nameAllocator.get("adt var"))
+        .beginControlFlow("while (!$L.isEmpty())", work)
+        .addStatement("$T $L = $L.remove($L.size() - 1)", objectType, next, work, work)
+        .beginControlFlow("if ($L instanceof $T)", next,
+            TypeName.get(utils.types().erasure(adt.typeConstructor().declaredType())))
+        .addStatement("(($T) $L).$L($L)", TypeName.get(adt.typeConstructor().declaredType()), next,
+            adt.matchMethod().element().getSimpleName(), unfoldArgs)
+        .nextControlFlow("else")
+        .addStatement("(($T) $L).run()", Runnable.class, next)
+        .endControlFlow()
+        .endControlFlow()
+        .addStatement("return $L.get(0)", results);
+
+    MethodSpec.Builder strictCata = MethodSpec.methodBuilder(STRICT_CATA)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get).collect(toList()))
+        .addTypeVariable(r)
+        .returns(
+            TypeName.get(utils.types().getDeclaredType(utils.function1Model(adt.deriveConfig().flavour()).samClass(),
+                adt.typeConstructor().declaredType(), adt.matchMethod().returnTypeVariable())))
+        .addParameters(constructors.stream()
+            .map(dc -> ParameterSpec.builder(cataMapperTypeName(adt, dc), MapperDerivator.mapperFieldName(dc)).build())
+            .collect(toList()))
+        .addCode("return $L -> {\n$>$L$<};\n", nameAllocator.get("adt var"), body.build());
+    if (!adt.typeConstructor().typeVariables().isEmpty()) {
+      strictCata.addAnnotation(
+          AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+    }
+
+    return methodSpec(strictCata.build());
+  }
+
+  /**
+   * A fork/join catamorphism for tree shaped data types (with a constructor that has at least two recursive fields):
+   * the recursive fields of a value are folded in parallel until the depth threshold is reached, below which the
+   * sequential {@code strictCata} is used, so that the call stack stays bounded by the threshold.
+   */
+  private DerivedCodeSpec parallelCata(AlgebraicDataType adt, Optional<DeclaredType> visitorType,
+      List<DataConstructor> constructors) {
+
+    if (constructors.stream().anyMatch(dc -> !dc.typeRestrictions().isEmpty()) || constructors.stream()
+        .noneMatch(dc -> dc.arguments().stream().filter(da -> isSelfReference(adt, da)).count() > 1)) {
+      return DerivedCodeSpec.none();
+    }
+
+    NameAllocator nameAllocator = nameAllocator(adt, constructors);
+    nameAllocator.newName("strictCata", "strictCata");
+    nameAllocator.newName("depth", "depth");
+    nameAllocator.newName("depthThreshold", "depthThreshold");
+    nameAllocator.newName("pool", "pool");
+    nameAllocator.newName("cases", "cases");
+    constructors.forEach(dc -> nameAllocator.newName(dc.name() + "Fold", dc.name() + " fold"));
+
+    String taskClassName = "ParallelCata";
+    String childMethod = "child";
+    String adtVar = nameAllocator.get("adt var");
+    String strictCata = nameAllocator.get("strictCata");
+    String depth = nameAllocator.get("depth");
+    List<TypeVariableName> typeVariables = concat(adt.typeConstructor().typeVariables().stream(),
+        Stream.of(adt.matchMethod().returnTypeVariable())).map(TypeVariableName::get).collect(toList());
+    TypeVariableName r = TypeVariableName.get(adt.matchMethod().returnTypeVariable());
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    TypeName taskType = Utils.typeName(ClassName.get("", taskClassName), typeVariables.stream().map(tv -> tv));
+    SamInterface f1 = utils.function1Model(adt.deriveConfig().flavour());
+    TypeName strictCataType = TypeName.get(utils.types().getDeclaredType(f1.samClass(),
+        adt.typeConstructor().declaredType(), adt.matchMethod().returnTypeVariable()));
+    String mappers = constructors.stream().map(MapperDerivator::mapperFieldName).collect(Collectors.joining(", "));
+
+    Function<DataConstructor, CodeBlock> foldLambda = dc -> {
+      NameAllocator fieldNames = nameAllocator.clone();
+      List<String> fields = dc.arguments()
+          .stream()
+          .map(DataArgument::fieldName)
+          .map(fn -> fieldNames.newName(fn, fn + " field"))
+          .collect(toList());
+      List<Integer> recursiveFields = IntStream.range(0, fields.size())
+          .filter(i -> isSelfReference(adt, dc.arguments().get(i)))
+          .boxed()
+          .collect(toList());
+      String mapperApply = MapperDerivator.mapperFieldName(dc) + '.' + mapperDerivator.mapperApplyMethod(
+          adt.deriveConfig(), dc);
+
+      CodeBlock.Builder lambda = CodeBlock.builder().add("($L) -> {\n$>", Utils.joinStringsAsArguments(fields.stream()));
+      List<String> args = new ArrayList<>(fields);
+      if (!recursiveFields.isEmpty()) {
+        // fork all recursive fields but the last one, that is folded in the current thread:
+        int last = recursiveFields.get(recursiveFields.size() - 1);
+        List<Integer> forked = recursiveFields.subList(0, recursiveFields.size() - 1);
+        for (int i : forked) {
+          String task = fieldNames.newName(fields.get(i) + "Task");
+          lambda.addStatement("$T $L = $L($L)", taskType, task, childMethod, fields.get(i))
+              .addStatement("$L.fork()", task);
+          args.set(i, task);
+        }
+        String lastResult = fieldNames.newName(fields.get(last) + "Result");
+        lambda.addStatement("$T $L = $L($L).compute()", r, lastResult, childMethod, fields.get(last));
+        args.set(last, lastResult);
+        for (int j = forked.size() - 1; j >= 0; j--) {
+          int i = forked.get(j);
+          String result = fieldNames.newName(fields.get(i) + "Result");
+          lambda.addStatement("$T $L = $L.join()", r, result, args.get(i));
+          args.set(i, result);
+        }
+      }
+      lambda.addStatement("return $L($L)", mapperApply, Utils.joinStringsAsArguments(args.stream()));
+      return lambda.add("$<}").build();
+    };
+
+    CodeBlock.Builder compute = CodeBlock.builder()
+        .beginControlFlow("if (this.$L <= 0)", depth)
+        .addStatement("return this.$L.$L(this.$L)", strictCata, f1.sam().getSimpleName(), adtVar)
+        .endControlFlow();
+
+    CodeBlock matchArgs = visitorType.map(vt -> {
+      compute.add("$T $L = new $L<>($L);\n", TypeName.get(vt), nameAllocator.get("cases"),
+          lambdaVisitorClassName(vt), constructors.stream().map(foldLambda).collect(CodeBlock.joining(",\n")));
+      return CodeBlock.of("$L", nameAllocator.get("cases"));
+    }).orElseGet(() -> {
+      for (DataConstructor dc : constructors) {
+        compute.add("$T $L = $L;\n", TypeName.get(dc.deconstructor().visitorType()),
+            nameAllocator.get(dc.name() + " fold"), foldLambda.apply(dc));
+      }
+      return constructors.stream()
+          .map(dc -> CodeBlock.of("$L", nameAllocator.get(dc.name() + " fold")))
+          .collect(CodeBlock.joining(", "));
+    });
+    compute.addStatement("return this.$L.$L($L)", adtVar, adt.matchMethod().element().getSimpleName(), matchArgs);
+
+    MethodSpec.Builder taskConstructor = MethodSpec.constructorBuilder();
+    TypeSpec.Builder task = TypeSpec.classBuilder(taskClassName)
+        // tasks are never serialized (and their functions may not be serializable):
+        .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "serial").build())
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .addTypeVariables(typeVariables)
+        .superclass(ParameterizedTypeName.get(ClassName.get(RecursiveTask.class), r));
+    List<ParameterSpec> fields = concat(constructors.stream()
+        .map(dc -> ParameterSpec.builder(cataMapperTypeName(adt, dc), MapperDerivator.mapperFieldName(dc)).build()),
+        Stream.of(ParameterSpec.builder(strictCataType, strictCata).build(),
+            ParameterSpec.builder(adtType, adtVar).build(), ParameterSpec.builder(TypeName.INT, depth).build()))
+        .collect(toList());
+    for (ParameterSpec field : fields) {
+      task.addField(FieldSpec.builder(field.type, field.name, Modifier.PRIVATE, Modifier.FINAL).build());
+      taskConstructor.addParameter(field).addStatement("this.$1N = $1N", field.name);
+    }
+    task.addMethod(taskConstructor.build())
+        .addMethod(MethodSpec.methodBuilder(childMethod)
+            .addModifiers(Modifier.PRIVATE)
+            .returns(taskType)
+            .addParameter(adtType, adtVar)
+            .addStatement("return new $L<>($L, this.$L, $L, this.$L - 1)", taskClassName, constructors.stream()
+                .map(dc -> "this." + MapperDerivator.mapperFieldName(dc))
+                .collect(Collectors.joining(", ")), strictCata, adtVar, depth)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("compute")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PROTECTED)
+            .returns(r)
+            .addCode(compute.build())
+            .build());
+
+    MethodSpec parallelCata = MethodSpec.methodBuilder("parallelCata")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(typeVariables)
+        .returns(strictCataType)
+        .addParameters(fields.subList(0, constructors.size()))
+        .addParameter(TypeName.INT, nameAllocator.get("depthThreshold"))
+        .addParameter(ForkJoinPool.class, nameAllocator.get("pool"))
+        .addStatement("$T $L = $L($L)", strictCataType, strictCata, STRICT_CATA, mappers)
+        .addStatement("return $1L -> $2L.invoke(new $3L<>($4L, $5L, $1L, $6L))", adtVar, nameAllocator.get("pool"),
+            taskClassName, mappers, strictCata, nameAllocator.get("depthThreshold"))
+        .build();
+
+    return DerivedCodeSpec.codeSpec(task.build(), parallelCata);
+  }
+
+  private boolean isSelfReference(AlgebraicDataType adt, DataArgument argument) {
+    return utils.types().isSameType(argument.type(), adt.typeConstructor().declaredType());
+  }
+
   private static NameAllocator nameAllocator(AlgebraicDataType adt, List<DataConstructor> constructors) {
 
     NameAllocator nameAllocator = new NameAllocator();
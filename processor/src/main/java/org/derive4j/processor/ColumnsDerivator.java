@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataArgument;
+import org.derive4j.processor.api.model.DataConstructor;
+
+import static org.derive4j.processor.api.DeriveResult.result;
+
+/**
+ * Derives a {@code Columns} container that stores values in structure-of-arrays form: one (primitive when possible)
+ * array per field of the data type, plus an array of constructor tags when there are several constructors. Rows can
+ * be appended without allocating the values, read back as values, or scanned by constructor mappers.
+ */
+final class ColumnsDerivator implements Derivator {
+
+  private static final String COLUMNS = "Columns";
+
+  private final DeriveUtils                deriveUtils;
+  private final MapperDerivator            mapperDerivator;
+  private final StrictConstructorDerivator strictConstructorDerivator;
+
+  ColumnsDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+    mapperDerivator = new MapperDerivator(deriveUtils);
+    strictConstructorDerivator = new StrictConstructorDerivator(deriveUtils);
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    if ((adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.ENUM) || adt.fields().isEmpty()
+        || (constructors.size() > Byte.MAX_VALUE)
+        || constructors.stream().anyMatch(dc -> !dc.typeRestrictions().isEmpty())) {
+      return result(DerivedCodeSpec.none());
+    }
+
+    List<TypeVariableName> typeVariables = adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    TypeName columnsType = Utils.typeName(adt.deriveConfig().targetClass().className().nestedClass(COLUMNS),
+        typeVariables.stream().map(tv -> tv));
+    String arg = Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName());
+
+    MethodSpec columns = MethodSpec.methodBuilder("columns")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(typeVariables)
+        .addParameter(ParameterizedTypeName.get(ClassName.get(Iterable.class), WildcardTypeName.subtypeOf(adtType)),
+            arg + "s")
+        .returns(columnsType)
+        .addStatement("$T columns = new $L$L()", columnsType, COLUMNS, typeVariables.isEmpty() ? "" : "<>")
+        .beginControlFlow("for ($T $L : $Ls)", adtType, arg, arg)
+        .addStatement("columns.add($L)", arg)
+        .endControlFlow()
+        .addStatement("return columns")
+        .build();
+
+    return result(DerivedCodeSpec.codeSpec(columnsSpec(adt, constructors, typeVariables, adtType, columnsType, arg),
+        columns));
+  }
+
+  private TypeSpec columnsSpec(AlgebraicDataType adt, List<DataConstructor> constructors,
+      List<TypeVariableName> typeVariables, TypeName adtType, TypeName columnsType, String arg) {
+
+    boolean tagged = constructors.size() > 1;
+    AnnotationSpec unchecked = AnnotationSpec.builder(SuppressWarnings.class)
+        .addMember("value", "$S", "unchecked")
+        .build();
+
+    TypeSpec.Builder columns = TypeSpec.classBuilder(COLUMNS)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .addTypeVariables(typeVariables)
+        .addField(FieldSpec.builder(TypeName.INT, "size", Modifier.PRIVATE).build())
+        .addField(FieldSpec.builder(TypeName.INT, "capacity", Modifier.PRIVATE).build())
+        .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC).build());
+
+    // reserves a row, growing all the arrays if needed:
+    MethodSpec.Builder newRow = MethodSpec.methodBuilder("newRow")
+        .addModifiers(Modifier.PRIVATE)
+        .returns(TypeName.INT)
+        .beginControlFlow("if (size == capacity)")
+        .addStatement("capacity = $T.max(8, size * 2)", Math.class);
+    if (tagged) {
+      columns.addField(FieldSpec.builder(byte[].class, "tags", Modifier.PRIVATE).initializer("new byte[0]").build());
+      newRow.addStatement("tags = $T.copyOf(tags, capacity)", Arrays.class);
+    }
+    for (DataArgument da : adt.fields()) {
+      TypeName elementType = Utils.arrayElementType(da.type(), deriveUtils.types());
+      columns.addField(FieldSpec.builder(ArrayTypeName.of(elementType), column(da), Modifier.PRIVATE)
+          .initializer(Utils.newArray(elementType, "0"))
+          .build());
+      newRow.addStatement("$1L = $2T.copyOf($1L, capacity)", column(da), Arrays.class);
+    }
+    columns.addMethod(newRow.endControlFlow().addStatement("return size++").build())
+        .addMethod(MethodSpec.methodBuilder("checkRow")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(TypeName.INT, "row")
+            .beginControlFlow("if (row < 0 || row >= size)")
+            .addStatement("throw new $T($S + row + $S + size)", IndexOutOfBoundsException.class, "Row: ", ", Size: ")
+            .endControlFlow()
+            .build());
+
+    // appends a row without allocating the value:
+    for (DataConstructor dc : constructors) {
+      NameAllocator nameAllocator = new NameAllocator();
+      dc.arguments().forEach(da -> nameAllocator.newName(da.fieldName(), da.fieldName()));
+      String row = nameAllocator.newName("row", "row");
+      MethodSpec.Builder append = MethodSpec.methodBuilder(dc.name())
+          .addModifiers(Modifier.PUBLIC)
+          .returns(columnsType)
+          .addParameters(dc.arguments()
+              .stream()
+              .map(da -> ParameterSpec.builder(TypeName.get(da.type()), da.fieldName()).build())
+              .collect(Collectors.toList()))
+          .addStatement("int $L = newRow()", row);
+      if (tagged) {
+        append.addStatement("tags[$L] = $L", row, StrictConstructorDerivator.ordinal(adt, dc));
+      }
+      for (DataArgument da : dc.arguments()) {
+        append.addStatement("$L[$L] = $L", column(da), row, da.fieldName());
+      }
+      columns.addMethod(append.addStatement("return this").build());
+    }
+
+    // typed accessors for the fields that are present in every row:
+    Set<String> reservedNames = Stream.concat(Stream.of("size", "add", "get", "map"),
+        constructors.stream().map(DataConstructor::name)).collect(Collectors.toSet());
+    adt.fields()
+        .stream()
+        .filter(da -> constructors.stream()
+            .allMatch(dc -> dc.arguments().stream().anyMatch(a -> a.fieldName().equals(da.fieldName()))))
+        .filter(da -> !reservedNames.contains(da.fieldName()))
+        .forEach(da -> {
+          MethodSpec.Builder accessor = MethodSpec.methodBuilder(da.fieldName())
+              .addModifiers(Modifier.PUBLIC)
+              .addParameter(TypeName.INT, "row")
+              .returns(TypeName.get(da.type()))
+              .addStatement("checkRow(row)");
+          if (Utils.arrayElementType(da.type(), deriveUtils.types()).equals(TypeName.get(da.type()))) {
+            accessor.addStatement("return $L[row]", column(da));
+          } else {
+            accessor.addAnnotation(unchecked).addStatement("return ($T) $L[row]", TypeName.get(da.type()), column(da));
+          }
+          columns.addMethod(accessor.build());
+        });
+
+    return columns.addMethod(MethodSpec.methodBuilder("size")
+        .addModifiers(Modifier.PUBLIC)
+        .returns(TypeName.INT)
+        .addStatement("return size")
+        .build())
+        .addMethod(addMethod(adt, constructors, adtType, columnsType, arg))
+        .addMethod(getMethod(adt, constructors, adtType, unchecked))
+        .addMethod(mapMethod(adt, constructors, unchecked))
+        .build();
+  }
+
+  private MethodSpec addMethod(AlgebraicDataType adt, List<DataConstructor> constructors, TypeName adtType,
+      TypeName columnsType, String arg) {
+
+    // values that are not built by the generated constructors (eg. lazy ones) are destructured by a visitor:
+    CodeBlock match = CodeBlock.builder()
+        .addStatement("$L.$L($L)", arg, adt.matchMethod().element().getSimpleName(),
+            strictConstructorDerivator.constructorsVisitor(adt, arg,
+                deriveUtils.elements().getTypeElement(Object.class.getName()).asType(),
+                (dc, args) -> CodeBlock.of("$L.this.$L($L)", COLUMNS, dc.name(), args)))
+        .build();
+
+    MethodSpec.Builder add = MethodSpec.methodBuilder("add")
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(adtType, arg)
+        .returns(columnsType);
+    if (!StrictConstructorDerivator.hasOrdinals(adt)) {
+      return add.addCode(match).addStatement("return this").build();
+    }
+
+    add.beginControlFlow("switch ($T._ordinal($L))", adt.deriveConfig().targetClass().className(), arg);
+    for (DataConstructor dc : constructors) {
+      TypeName constructorType = Utils.typeName(
+          ClassName.bestGuess(StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc)),
+          adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get));
+      add.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+          .addStatement("return $L($L)", dc.name(), dc.arguments()
+              .stream()
+              .map(da -> CodeBlock.of("(($T) $L).$L", constructorType, arg, da.fieldName()))
+              .collect(CodeBlock.joining(", ")))
+          .addCode("$<");
+    }
+    return add.addCode("default:\n$>")
+        .addCode(match)
+        .addStatement("return this")
+        .addCode("$<")
+        .endControlFlow()
+        .build();
+  }
+
+  private MethodSpec getMethod(AlgebraicDataType adt, List<DataConstructor> constructors, TypeName adtType,
+      AnnotationSpec unchecked) {
+
+    MethodSpec.Builder get = MethodSpec.methodBuilder("get")
+        .addModifiers(Modifier.PUBLIC)
+        .addParameter(TypeName.INT, "row")
+        .returns(adtType)
+        .addStatement("checkRow(row)");
+    if (adt.fields()
+        .stream()
+        .anyMatch(da -> !Utils.arrayElementType(da.type(), deriveUtils.types()).equals(TypeName.get(da.type())))) {
+      get.addAnnotation(unchecked);
+    }
+    if (constructors.size() == 1) {
+      return get.addStatement("return $L", construct(adt, constructors.get(0))).build();
+    }
+
+    get.beginControlFlow("switch (tags[row])");
+    for (DataConstructor dc : constructors) {
+      get.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+          .addStatement("return $L", construct(adt, dc))
+          .addCode("$<");
+    }
+    return get.addCode("default:\n$>")
+        .addStatement("throw new $T()", IllegalStateException.class)
+        .addCode("$<")
+        .endControlFlow()
+        .build();
+  }
+
+  private MethodSpec mapMethod(AlgebraicDataType adt, List<DataConstructor> constructors, AnnotationSpec unchecked) {
+
+    TypeVariableName r = TypeVariableName.get(adt.matchMethod().returnTypeVariable());
+    NameAllocator nameAllocator = new NameAllocator();
+    constructors.forEach(dc -> nameAllocator.newName(MapperDerivator.mapperFieldName(dc), dc.name() + " mapper"));
+    String results = nameAllocator.newName("results", "results");
+    String row = nameAllocator.newName("row", "row");
+
+    MethodSpec.Builder map = MethodSpec.methodBuilder("map")
+        .addAnnotation(unchecked)
+        .addModifiers(Modifier.PUBLIC)
+        .addTypeVariable(r)
+        .returns(ParameterizedTypeName.get(ClassName.get(List.class), r))
+        .addParameters(constructors.stream()
+            .map(dc -> ParameterSpec.builder(mapperDerivator.mapperTypeName(adt, dc),
+                nameAllocator.get(dc.name() + " mapper")).build())
+            .collect(Collectors.toList()))
+        .addStatement("$T[] $L = new $T[size]", Object.class, results, Object.class)
+        .beginControlFlow("for (int $1L = 0; $1L < size; $1L++)", row);
+
+    if (constructors.size() == 1) {
+      map.addStatement("$L[$L] = $L", results, row, applyMapper(adt, constructors.get(0), nameAllocator, row));
+    } else {
+      map.beginControlFlow("switch (tags[$L])", row);
+      for (DataConstructor dc : constructors) {
+        map.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+            .addStatement("$L[$L] = $L", results, row, applyMapper(adt, dc, nameAllocator, row))
+            .addStatement("break")
+            .addCode("$<");
+      }
+      map.endControlFlow();
+    }
+
+    return map.endControlFlow()
+        .addStatement("return ($T) $T.asList($L)", ParameterizedTypeName.get(ClassName.get(List.class), r),
+            Arrays.class, results)
+        .build();
+  }
+
+  private CodeBlock applyMapper(AlgebraicDataType adt, DataConstructor dc, NameAllocator nameAllocator, String row) {
+    return CodeBlock.of("$L.$L($L)", nameAllocator.get(dc.name() + " mapper"),
+        mapperDerivator.mapperApplyMethod(adt.deriveConfig(), dc), columnValues(dc, row));
+  }
+
+  private CodeBlock construct(AlgebraicDataType adt, DataConstructor dc) {
+    return CodeBlock.of("$T.$L($L)", adt.deriveConfig().targetClass().className(), dc.name(), columnValues(dc, "row"));
+  }
+
+  private CodeBlock columnValues(DataConstructor dc, String row) {
+    return dc.arguments()
+        .stream()
+        .map(da -> Utils.arrayElementType(da.type(), deriveUtils.types()).equals(TypeName.get(da.type()))
+            ? CodeBlock.of("$L[$L]", column(da), row)
+            : CodeBlock.of("($T) $L[$L]", TypeName.get(da.type()), column(da), row))
+        .collect(CodeBlock.joining(", "));
+  }
+
+  private static String column(DataArgument da) {
+    return da.fieldName() + "Column";
+  }
+}
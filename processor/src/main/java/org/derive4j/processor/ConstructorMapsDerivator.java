@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.DerivedCodeSpecs;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataConstructor;
+import org.derive4j.processor.api.model.MultipleConstructorsSupport;
+
+import static org.derive4j.processor.api.DeriveResult.result;
+import static org.derive4j.processor.api.model.DataConstructions.caseOf;
+
+/**
+ * Derives a {@code Constructor} enum of the data constructors, with a {@code constructorOf} function, and the
+ * {@code ConstructorSet} and {@code ConstructorMap} collections indexed by the enum ordinals (backed by a bitset and an
+ * array), to aggregate values per constructor without hashing.
+ */
+final class ConstructorMapsDerivator implements Derivator {
+
+  private static final String CONSTRUCTOR     = "Constructor";
+  private static final String CONSTRUCTOR_SET = "ConstructorSet";
+  private static final String CONSTRUCTOR_MAP = "ConstructorMap";
+
+  private final DeriveUtils deriveUtils;
+
+  ConstructorMapsDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    // java enums already have EnumSet and EnumMap:
+    if (adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.ENUM) {
+      return result(DerivedCodeSpec.none());
+    }
+
+    return result(caseOf(adt.dataConstruction()).multipleConstructors(MultipleConstructorsSupport.cases()
+        .visitorDispatch((visitorParam, visitorType, constructors) -> constructorMaps(adt, constructors,
+            Optional.of(visitorType)))
+        .functionsDispatch(constructors -> constructorMaps(adt, constructors, Optional.empty())))
+        .otherwise(DerivedCodeSpec::none));
+  }
+
+  private DerivedCodeSpec constructorMaps(AlgebraicDataType adt, List<DataConstructor> constructors,
+      Optional<DeclaredType> visitorType) {
+
+    ClassName targetClass = adt.deriveConfig().targetClass().className();
+    ClassName constructorEnum = targetClass.nestedClass(CONSTRUCTOR);
+    ClassName constructorSet = targetClass.nestedClass(CONSTRUCTOR_SET);
+
+    TypeSpec.Builder enumBuilder = TypeSpec.enumBuilder(CONSTRUCTOR).addModifiers(Modifier.PUBLIC);
+    constructors.forEach(dc -> enumBuilder.addEnumConstant(dc.name()));
+
+    FieldSpec constructorsField = FieldSpec
+        .builder(ArrayTypeName.of(constructorEnum), "CONSTRUCTORS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .initializer("$T.values()", constructorEnum)
+        .build();
+
+    return DerivedCodeSpecs.codeSpec(Arrays.asList(enumBuilder.build(),
+        constructorSetSpec(constructors.size(), constructorEnum, constructorSet, constructorsField),
+        constructorMapSpec(constructors.size(), constructorEnum, constructorSet)), Collections.emptyList(),
+        Collections.emptyList()).append(constructorOf(adt, constructors, visitorType, constructorEnum));
+  }
+
+  private DerivedCodeSpec constructorOf(AlgebraicDataType adt, List<DataConstructor> constructors,
+      Optional<DeclaredType> visitorType, ClassName constructorEnum) {
+
+    String arg = Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName());
+    List<TypeVariableName> typeVariables = adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+
+    MethodSpec.Builder constructorOf = MethodSpec.methodBuilder("constructorOf")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(typeVariables)
+        .addParameter(TypeName.get(adt.typeConstructor().declaredType()), arg)
+        .returns(constructorEnum);
+
+    // the visitor is a constant, and the lambdas are non-capturing: no allocation.
+    Optional<FieldSpec> visitorField = visitorType.map(vt -> FieldSpec
+        .builder(visitorFieldType(adt, vt, constructorEnum),
+            "constructorOf", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .initializer("$T.$L($L)", adt.deriveConfig().targetClass().className(),
+            MapperDerivator.visitorLambdaFactoryName(adt), constructorLambdas(constructors, constructorEnum, arg, ",\n"))
+        .build());
+
+    CodeBlock matchStatement = visitorField.map(field -> typeVariables.isEmpty()
+        ? CodeBlock.builder()
+            .addStatement("return $L.$L($N)", arg, adt.matchMethod().element().getSimpleName(), field)
+            .build()
+        : CodeBlock.builder()
+            .addStatement("return ($T) $L.$L(($T) $N)", constructorEnum, arg,
+                adt.matchMethod().element().getSimpleName(),
+                TypeName.get(deriveUtils.types().erasure(visitorType.get())), field)
+            .build())
+        .orElseGet(() -> CodeBlock.builder()
+            .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(),
+                constructorLambdas(constructors, constructorEnum, arg, ", "))
+            .build());
+
+    if (visitorField.isPresent() && !typeVariables.isEmpty()) {
+      constructorOf.addAnnotation(
+          AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "{$S, $S}", "unchecked", "rawtypes").build());
+    }
+
+    constructorOf.addCode(StrictConstructorDerivator.hasOrdinals(adt)
+        ? PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, arg,
+            (dc, args) -> CodeBlock.of("$T.$L", constructorEnum, dc.name()), matchStatement)
+        : matchStatement);
+
+    return visitorField.map(field -> DerivedCodeSpec.codeSpec(field, constructorOf.build()))
+        .orElseGet(() -> DerivedCodeSpec.methodSpec(constructorOf.build()));
+  }
+
+  private static CodeBlock constructorLambdas(List<DataConstructor> constructors, ClassName constructorEnum,
+      String arg, String separator) {
+
+    NameAllocator nameAllocator = new NameAllocator();
+    nameAllocator.newName(arg);
+    nameAllocator.newName(CONSTRUCTOR);
+    return constructors.stream()
+        .map(dc -> CodeBlock.of("($L) -> $T.$L", Utils.asLambdaParametersString(dc.arguments(),
+            dc.typeRestrictions(), nameAllocator.clone()), constructorEnum, dc.name()))
+        .collect(CodeBlock.joining(separator));
+  }
+
+  private static TypeSpec constructorSetSpec(int nbConstructors, ClassName constructorEnum, ClassName constructorSet,
+      FieldSpec constructorsField) {
+
+    ParameterSpec constructor = ParameterSpec.builder(constructorEnum, "constructor").build();
+    TypeName iteratorType = ParameterizedTypeName.get(ClassName.get(Iterator.class), constructorEnum);
+
+    TypeSpec iterator = TypeSpec.anonymousClassBuilder("")
+        .addSuperinterface(iteratorType)
+        .addField(FieldSpec.builder(TypeName.INT, "next", Modifier.PRIVATE).initializer("nextOrdinal(0)").build())
+        .addMethod(MethodSpec.methodBuilder("hasNext")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return next < $L", nbConstructors)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("next")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(constructorEnum)
+            .beginControlFlow("if (next >= $L)", nbConstructors)
+            .addStatement("throw new $T()", NoSuchElementException.class)
+            .endControlFlow()
+            .addStatement("$T constructor = $N[next]", constructorEnum, constructorsField)
+            .addStatement("next = nextOrdinal(next + 1)")
+            .addStatement("return constructor")
+            .build())
+        .build();
+
+    return TypeSpec.classBuilder(CONSTRUCTOR_SET)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Iterable.class), constructorEnum))
+        .addField(constructorsField)
+        .addField(FieldSpec.builder(long[].class, "words", Modifier.PRIVATE, Modifier.FINAL).build())
+        .addMethod(MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(long[].class, "words")
+            .addStatement("this.words = words")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("noneOf")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .returns(constructorSet)
+            .addStatement("return new $T(new long[$L])", constructorSet, (nbConstructors + 63) / 64)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("allOf")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .returns(constructorSet)
+            .addStatement("$1T set = noneOf()", constructorSet)
+            .beginControlFlow("for ($T constructor : $N)", constructorEnum, constructorsField)
+            .addStatement("set.add(constructor)")
+            .endControlFlow()
+            .addStatement("return set")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("of")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(ArrayTypeName.of(constructorEnum), "constructors")
+            .varargs()
+            .returns(constructorSet)
+            .addStatement("$1T set = noneOf()", constructorSet)
+            .beginControlFlow("for ($T constructor : constructors)", constructorEnum)
+            .addStatement("set.add(constructor)")
+            .endControlFlow()
+            .addStatement("return set")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("contains")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return (words[$1N.ordinal() >>> 6] & (1L << $1N.ordinal())) != 0", constructor)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("add")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("int word = $N.ordinal() >>> 6", constructor)
+            .addStatement("long previous = words[word]")
+            .addStatement("words[word] = previous | (1L << $N.ordinal())", constructor)
+            .addStatement("return words[word] != previous")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("remove")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("int word = $N.ordinal() >>> 6", constructor)
+            .addStatement("long previous = words[word]")
+            .addStatement("words[word] = previous & ~(1L << $N.ordinal())", constructor)
+            .addStatement("return words[word] != previous")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("size")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.INT)
+            .addStatement("int size = 0")
+            .beginControlFlow("for (long word : words)")
+            .addStatement("size += $T.bitCount(word)", Long.class)
+            .endControlFlow()
+            .addStatement("return size")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("isEmpty")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return size() == 0")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("clear")
+            .addModifiers(Modifier.PUBLIC)
+            .addStatement("$T.fill(words, 0L)", Arrays.class)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("copy")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(constructorSet)
+            .addStatement("return new $T(words.clone())", constructorSet)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("nextOrdinal")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(TypeName.INT, "ordinal")
+            .returns(TypeName.INT)
+            .beginControlFlow("while (ordinal < $L && (words[ordinal >>> 6] & (1L << ordinal)) == 0)", nbConstructors)
+            .addStatement("ordinal++")
+            .endControlFlow()
+            .addStatement("return ordinal")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("iterator")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(iteratorType)
+            .addStatement("return $L", iterator)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("toString")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(String.class)
+            .addStatement("$1T builder = new $1T(\"[\")", StringBuilder.class)
+            .beginControlFlow("for ($T constructor : this)", constructorEnum)
+            .addStatement("builder.append(builder.length() > 1 ? \", \" : \"\").append(constructor)")
+            .endControlFlow()
+            .addStatement("return builder.append(']').toString()")
+            .build())
+        .build();
+  }
+
+  private static TypeSpec constructorMapSpec(int nbConstructors, ClassName constructorEnum,
+      ClassName constructorSet) {
+
+    TypeVariableName v = TypeVariableName.get("V");
+    ParameterSpec constructor = ParameterSpec.builder(constructorEnum, "constructor").build();
+    AnnotationSpec uncheckedAnnotation = AnnotationSpec.builder(SuppressWarnings.class)
+        .addMember("value", "$S", "unchecked")
+        .build();
+
+    return TypeSpec.classBuilder(CONSTRUCTOR_MAP)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .addTypeVariable(v)
+        .addField(FieldSpec.builder(Object[].class, "values", Modifier.PRIVATE, Modifier.FINAL)
+            .initializer("new Object[$L]", nbConstructors)
+            .build())
+        .addField(FieldSpec.builder(constructorSet, "keys", Modifier.PRIVATE, Modifier.FINAL)
+            .initializer("$T.noneOf()", constructorSet)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("get")
+            .addAnnotation(uncheckedAnnotation)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .returns(v)
+            .addStatement("return ($T) values[$N.ordinal()]", v, constructor)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("getOrDefault")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .addParameter(v, "defaultValue")
+            .returns(v)
+            .addStatement("return keys.contains($1N) ? get($1N) : defaultValue", constructor)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("put")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .addParameter(v, "value")
+            .returns(v)
+            .addStatement("$T previous = get($N)", v, constructor)
+            .addStatement("values[$N.ordinal()] = value", constructor)
+            .addStatement("keys.add($N)", constructor)
+            .addStatement("return previous")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("remove")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .returns(v)
+            .addStatement("$T previous = get($N)", v, constructor)
+            .addStatement("values[$N.ordinal()] = null", constructor)
+            .addStatement("keys.remove($N)", constructor)
+            .addStatement("return previous")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("containsKey")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(constructor)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return keys.contains($N)", constructor)
+            .build())
+        .addMethod(MethodSpec.methodBuilder("size")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.INT)
+            .addStatement("return keys.size()")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("isEmpty")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return keys.isEmpty()")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("clear")
+            .addModifiers(Modifier.PUBLIC)
+            .addStatement("$T.fill(values, null)", Arrays.class)
+            .addStatement("keys.clear()")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("keySet")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(constructorSet)
+            .addStatement("return keys.copy()")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("toString")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(String.class)
+            .addStatement("$1T builder = new $1T(\"{\")", StringBuilder.class)
+            .beginControlFlow("for ($T constructor : keys)", constructorEnum)
+            .addStatement(
+                "builder.append(builder.length() > 1 ? \", \" : \"\").append(constructor).append('=').append(get(constructor))")
+            .endControlFlow()
+            .addStatement("return builder.append('}').toString()")
+            .build())
+        .build();
+  }
+
+  // the visitor type, with the constructor enum as result type and Object for the type variables of the data type.
+  private TypeName visitorFieldType(AlgebraicDataType adt, DeclaredType visitorType, ClassName constructorEnum) {
+
+    TypeMirror object = deriveUtils.elements().getTypeElement(Object.class.getName()).asType();
+    return Utils.typeName(ClassName.get(deriveUtils.asTypeElement(visitorType).get()), visitorType.getTypeArguments()
+        .stream()
+        .map(tm -> deriveUtils.types().isSameType(tm, adt.matchMethod().returnTypeVariable())
+            ? constructorEnum
+            : TypeName.get(deriveUtils.resolve(tm, tv -> Optional.of(object)))));
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataConstructor;
+import org.derive4j.processor.api.model.DataConstructions;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Derives {@code matchWith}: pattern matching that threads a context value to the case functions, so that they do not
+ * need to capture it. Non-capturing case functions are allocated only once, so a match in a loop does not allocate.
+ * As for primitive matching, values are dispatched with a switch on the constructor ordinal (lazy ones through
+ * {@code match}).
+ */
+final class ContextMatchingDerivator implements Derivator {
+
+  private final DeriveUtils                deriveUtils;
+  private final StrictConstructorDerivator strictConstructorDerivator;
+
+  ContextMatchingDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+    strictConstructorDerivator = new StrictConstructorDerivator(deriveUtils);
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    return DeriveResult.result(StrictConstructorDerivator.hasOrdinals(adt)
+        ? DataConstructions.caseOf(adt.dataConstruction())
+            .multipleConstructors_(contextMatch(adt))
+            .otherwise_(DerivedCodeSpec.none())
+        : DerivedCodeSpec.none());
+  }
+
+  private DerivedCodeSpec contextMatch(AlgebraicDataType adt) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    TypeVariableName resultVariable = TypeVariableName.get(adt.matchMethod().returnTypeVariable());
+
+    NameAllocator typeVariableAllocator = new NameAllocator();
+    adt.typeConstructor().typeVariables().forEach(tv -> typeVariableAllocator.newName(tv.toString()));
+    typeVariableAllocator.newName(resultVariable.name);
+    TypeVariableName contextVariable = TypeVariableName.get(typeVariableAllocator.newName("C"));
+
+    NameAllocator nameAllocator = new NameAllocator();
+    constructors.forEach(dc -> dc.arguments().forEach(da -> nameAllocator.newName(da.fieldName())));
+    String arg = nameAllocator.newName(Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName()));
+    String context = nameAllocator.newName("context");
+
+    TypeElement f1 = deriveUtils.function1Model(adt.deriveConfig().flavour()).samClass();
+    String f1Apply = deriveUtils.allAbstractMethods(f1).get(0).getSimpleName().toString();
+
+    List<TypeSpec> mapperInterfaces = new ArrayList<>();
+    MethodSpec.Builder match = MethodSpec.methodBuilder("matchWith")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get).collect(toList()))
+        .addTypeVariable(contextVariable)
+        .addTypeVariable(resultVariable)
+        .returns(resultVariable)
+        .addParameter(TypeName.get(adt.typeConstructor().declaredType()), arg)
+        .addParameter(contextVariable, context);
+
+    List<String> mapperNames = new ArrayList<>();
+    List<String> mapperMethods = new ArrayList<>();
+    for (DataConstructor dc : constructors) {
+      String mapperName = nameAllocator.newName(dc.name());
+      mapperNames.add(mapperName);
+      TypeName mapperType;
+      if (dc.arguments().isEmpty()) {
+        mapperType = ParameterizedTypeName.get(ClassName.get(f1), contextVariable, resultVariable);
+        mapperMethods.add(f1Apply);
+      } else {
+        TypeSpec mapperInterface = mapperInterface(adt, dc, contextVariable, resultVariable);
+        mapperInterfaces.add(mapperInterface);
+        mapperType = ParameterizedTypeName.get(
+            adt.deriveConfig().targetClass().className().nestedClass(mapperInterface.name),
+            mapperInterface.typeVariables.toArray(new TypeName[0]));
+        mapperMethods.add(dc.name());
+      }
+      match.addParameter(ParameterSpec.builder(mapperType, mapperName).build());
+    }
+
+    BiFunction<DataConstructor, Object, CodeBlock> mapperCall = (dc, arguments) -> {
+      int index = constructors.indexOf(dc);
+      return dc.arguments().isEmpty()
+          ? CodeBlock.of("$L.$L($L)", mapperNames.get(index), mapperMethods.get(index), context)
+          : CodeBlock.of("$L.$L($L, $L)", mapperNames.get(index), mapperMethods.get(index), context, arguments);
+    };
+    // lazy values are matched through the match method:
+    CodeBlock visitorMatch = CodeBlock.builder()
+        .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(),
+            strictConstructorDerivator.constructorsVisitor(adt, arg, adt.matchMethod().returnTypeVariable(),
+                mapperCall::apply))
+        .build();
+    match.addCode(PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, arg, mapperCall::apply, visitorMatch));
+
+    return DerivedCodeSpec.codeSpec(mapperInterfaces, match.build());
+  }
+
+  private TypeSpec mapperInterface(AlgebraicDataType adt, DataConstructor dc, TypeVariableName contextVariable,
+      TypeVariableName resultVariable) {
+
+    NameAllocator nameAllocator = new NameAllocator();
+    dc.arguments().forEach(da -> nameAllocator.newName(da.fieldName()));
+
+    return TypeSpec.interfaceBuilder(Utils.capitalize(dc.name()) + "ContextMapper")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(Stream.concat(Stream.concat(Stream.of(contextVariable), adt.typeConstructor()
+            .typeVariables()
+            .stream()
+            .filter(tv -> dc.arguments()
+                .stream()
+                .flatMap(da -> deriveUtils.typeVariablesIn(da.type()).stream())
+                .anyMatch(argTv -> deriveUtils.types().isSameType(argTv, tv)))
+            .map(TypeVariableName::get)), Stream.of(resultVariable)).collect(toList()))
+        .addMethod(MethodSpec.methodBuilder(dc.name())
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameter(contextVariable, nameAllocator.newName("context"))
+            .addParameters(dc.arguments()
+                .stream()
+                .map(da -> ParameterSpec.builder(TypeName.get(da.type()), da.fieldName()).build())
+                .collect(toList()))
+            .returns(resultVariable)
+            .build())
+        .build();
+  }
+
+}
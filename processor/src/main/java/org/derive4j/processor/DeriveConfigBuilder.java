@@ -156,7 +156,14 @@ final class DeriveConfigBuilder {
       .getters(() -> of(lambdaVisitor))
       .modifiers(() -> of(lambdaVisitor, constructors))
       .catamorphism(() -> of(lambdaVisitor))
-      .factory(() -> of(lambdaVisitor));
+      .factory(() -> of(lambdaVisitor))
+      .primitiveMatching(() -> of(constructors))
+      .contextMatching(() -> of(constructors))
+      .iterators(() -> of(constructors))
+      .constructorMaps(() -> of(lambdaVisitor))
+      .batchMatching(() -> of(lambdaVisitor, constructors))
+      .columns(() -> of(lambdaVisitor, constructors))
+      .flyweight(() -> of(constructors));
 
   private final TypeElement       dataAnnotation;
   private final TypeElement       deriveAnnotation;
@@ -172,6 +179,10 @@ final class DeriveConfigBuilder {
   private final ExecutableElement instancesInClass;
   private final ExecutableElement instancesSelector;
 
+  private final Map<TypeElement, Optional<P2<TypeElement, DeriveConfig>>> deriveConfigCache = new HashMap<>();
+  private int                                                             deriveConfigHits;
+  private int                                                             deriveConfigMisses;
+
   DeriveConfigBuilder(Elements elements) {
     dataAnnotation = elements.getTypeElement(Data.class.getName());
     flavour = unsafeGetExecutableElement(dataAnnotation, "flavour");
@@ -190,7 +201,57 @@ final class DeriveConfigBuilder {
     instancesSelector = unsafeGetExecutableElement(instanceAnnotation, "selector");
   }
 
+  Stream<TypeElement> deriveAnnotations() {
+    return of(dataAnnotation, deriveAnnotation);
+  }
+
+  /**
+   * Whether the given annotation is {@code @Data}, {@code @Derive}, or a custom annotation that is (transitively)
+   * annotated by one of them.
+   */
+  boolean isDeriveAnnotation(TypeElement annotation) {
+    return isDeriveAnnotation(annotation, new HashSet<>());
+  }
+
+  private boolean isDeriveAnnotation(Element annotation, HashSet<Element> seenAnnotations) {
+    return annotation.equals(dataAnnotation) || annotation.equals(deriveAnnotation) || (seenAnnotations.add(annotation)
+        && annotation.getAnnotationMirrors()
+            .stream()
+            .anyMatch(a -> isDeriveAnnotation(a.getAnnotationType().asElement(), seenAnnotations)));
+  }
+
+  /**
+   * Derive configuration of the given type element, memoized until the next processing round (where the annotations
+   * of the type element may have changed).
+   */
   Optional<P2<TypeElement, DeriveConfig>> findDeriveConfig(TypeElement typeElement) {
+    Optional<P2<TypeElement, DeriveConfig>> deriveConfig = deriveConfigCache.get(typeElement);
+    if (deriveConfig == null) {
+      deriveConfigMisses++;
+      deriveConfig = computeDeriveConfig(typeElement);
+      deriveConfigCache.put(typeElement, deriveConfig);
+    } else {
+      deriveConfigHits++;
+    }
+    return deriveConfig;
+  }
+
+  /**
+   * Invalidates memoized configurations: must be called at the start of each processing round.
+   */
+  void newRound() {
+    deriveConfigCache.clear();
+  }
+
+  int deriveConfigHits() {
+    return deriveConfigHits;
+  }
+
+  int deriveConfigMisses() {
+    return deriveConfigMisses;
+  }
+
+  private Optional<P2<TypeElement, DeriveConfig>> computeDeriveConfig(TypeElement typeElement) {
     return deriveConfigs(typeElement, typeElement, new HashSet<>()).reduce(Function::andThen)
         .map(customConfig -> P2s.P2(typeElement, customConfig.apply(defaultConfig(typeElement))));
   }
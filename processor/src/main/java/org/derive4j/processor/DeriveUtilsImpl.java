@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -150,12 +151,22 @@ final class DeriveUtilsImpl implements DeriveUtils {
   private final SourceVersion       SourceVersion;
   private final DeriveConfigBuilder deriveConfigBuilder;
   private final ObjectModel         objectModel;
+  private final MemberIndex         memberIndex;
 
   private final Function<Flavour, SamInterface>          function0Model;
   private final Function<Flavour, SamInterface>          function1Model;
   private final Function<Flavour, OptionModel>           optionModel;
   private final Function<Flavour, Optional<EitherModel>> eitherModel;
 
+  // round-scoped, see newRound():
+  private final Map<List<Object>, DeriveResult<BoundExpression>> instanceResolutions = new HashMap<>();
+  private final Map<P2<TypeElement, TypeElement>, P2<List<VariableElement>, List<ExecutableElement>>> instanceProviders
+      = new HashMap<>();
+  private int instanceResolutionsComputed;
+  private int instanceResolutionsReused;
+  private int instanceProvidersIndexed;
+  private int instanceProvidersReused;
+
   DeriveUtilsImpl(
       Elements Elements, Types Types, SourceVersion SourceVersion, DeriveConfigBuilder deriveConfigBuilder) {
 
@@ -163,6 +174,7 @@ final class DeriveUtilsImpl implements DeriveUtils {
     this.Types = Types;
     this.SourceVersion = SourceVersion;
     this.deriveConfigBuilder = deriveConfigBuilder;
+    memberIndex = new MemberIndex(Elements, this::abstractMethod);
 
     TypeElement object = Elements.getTypeElement(Object.class.getName());
     List<ExecutableElement> objectMethods = ElementFilter.methodsIn(object.getEnclosedElements());
@@ -331,31 +343,41 @@ final class DeriveUtilsImpl implements DeriveUtils {
 
     return asTypeElement.visit(declaredType.asElement()).map(typeElement -> {
 
-      List<P2<ExecutableElement, ExecutableType>> unorderedAbstractMethods = getMethods(
-          Elements.getAllMembers(typeElement)).filter(this::abstractMethod)
-              .map(e -> p2(e, (ExecutableType) Types.asMemberOf(declaredType, e)))
-              .collect(toList());
-
-      Set<ExecutableElement> deduplicatedUnorderedAbstractMethods = IntStream.range(0, unorderedAbstractMethods.size())
-          .filter(i -> unorderedAbstractMethods.subList(0, i)
-              .stream()
-              .noneMatch(m -> m.match((predExecutableElement, predExecutableType) -> unorderedAbstractMethods.get(i)
-                  .match((executableElement,
-                      executableType) -> predExecutableElement.getSimpleName().equals(executableElement.getSimpleName())
-                          && Types.isSubsignature(predExecutableType, executableType)))))
-          .mapToObj(i -> unorderedAbstractMethods.get(i).match((executableElement, __) -> executableElement))
-          .collect(toSet());
-
-      return Stream.concat(getSuperTypeElements(typeElement), Stream.of(typeElement))
-          .flatMap(te -> te.getEnclosedElements().stream())
-          .map(asExecutableElement::visit)
-          .flatMap(Utils::optionalAsStream)
+      List<ExecutableElement> abstractMethods = memberIndex.abstractMethods(typeElement);
+
+      // Only methods of the same name may be override-equivalent (as members of the declared type):
+      Set<ExecutableElement> deduplicatedUnorderedAbstractMethods = (abstractMethods.stream()
+          .map(ExecutableElement::getSimpleName)
+          .distinct()
+          .count() == abstractMethods.size())
+              ? new HashSet<>(abstractMethods)
+              : deduplicate(declaredType, abstractMethods);
+
+      return memberIndex.declaredMethods(typeElement)
+          .stream()
           .filter(deduplicatedUnorderedAbstractMethods::contains)
           .collect(toList());
 
     }).orElse(emptyList());
   }
 
+  private Set<ExecutableElement> deduplicate(DeclaredType declaredType, List<ExecutableElement> abstractMethods) {
+
+    List<P2<ExecutableElement, ExecutableType>> unorderedAbstractMethods = abstractMethods.stream()
+        .map(e -> p2(e, (ExecutableType) Types.asMemberOf(declaredType, e)))
+        .collect(toList());
+
+    return IntStream.range(0, unorderedAbstractMethods.size())
+        .filter(i -> unorderedAbstractMethods.subList(0, i)
+            .stream()
+            .noneMatch(m -> m.match((predExecutableElement, predExecutableType) -> unorderedAbstractMethods.get(i)
+                .match((executableElement,
+                    executableType) -> predExecutableElement.getSimpleName().equals(executableElement.getSimpleName())
+                        && Types.isSubsignature(predExecutableType, executableType)))))
+        .mapToObj(i -> unorderedAbstractMethods.get(i).match((executableElement, __) -> executableElement))
+        .collect(toSet());
+  }
+
   @Override
   public List<ExecutableElement> allAbstractMethods(TypeElement typeElement) {
 
@@ -364,15 +386,15 @@ final class DeriveUtilsImpl implements DeriveUtils {
 
   @Override
   public Stream<ExecutableElement> allStaticMethods(TypeElement typeElement) {
-    return concat(getSuperTypeElements(typeElement), Stream.of(typeElement))
-        .flatMap(te -> getMethods(Elements.getAllMembers(te)))
+    return concat(memberIndex.superTypeElements(typeElement).stream(), Stream.of(typeElement))
+        .flatMap(te -> getMethods(memberIndex.allMembers(te)))
         .filter(e -> e.getModifiers().contains(Modifier.STATIC) && !e.getModifiers().contains(Modifier.PRIVATE));
   }
 
   @Override
   public Stream<VariableElement> allStaticFields(TypeElement typeElement) {
-    return concat(Stream.of(typeElement), getSuperTypeElements(typeElement))
-        .flatMap(te -> getFields(Elements.getAllMembers(te)))
+    return concat(Stream.of(typeElement), memberIndex.superTypeElements(typeElement).stream())
+        .flatMap(te -> getFields(memberIndex.allMembers(te)))
         .filter(e -> ((e.getModifiers().contains(Modifier.STATIC)
             && e.getModifiers().contains(Modifier.FINAL)) || typeElement.getKind() == ElementKind.INTERFACE)
             && !e.getModifiers().contains(Modifier.PRIVATE));
@@ -388,6 +410,35 @@ final class DeriveUtilsImpl implements DeriveUtils {
     return asDeclaredType(typeMirror).map(DeclaredType::asElement).flatMap(asTypeElement::visit);
   }
 
+  MemberIndex memberIndex() {
+    return memberIndex;
+  }
+
+  /**
+   * Invalidates memoized members and instance resolutions: must be called at the start of each processing round.
+   */
+  void newRound() {
+    memberIndex.newRound();
+    instanceResolutions.clear();
+    instanceProviders.clear();
+  }
+
+  int instanceResolutionsComputed() {
+    return instanceResolutionsComputed;
+  }
+
+  int instanceResolutionsReused() {
+    return instanceResolutionsReused;
+  }
+
+  int instanceProvidersIndexed() {
+    return instanceProvidersIndexed;
+  }
+
+  int instanceProvidersReused() {
+    return instanceProvidersReused;
+  }
+
   public Optional<TypeElement> generatedAnnotation() {
     return GeneratedAnnotations.generatedAnnotation(Elements, SourceVersion);
   }
@@ -469,6 +520,24 @@ final class DeriveUtilsImpl implements DeriveUtils {
   @Override
   public DeriveResult<BoundExpression> instanceInitializer(TypeElement typeElementContext, ClassName typeClassContext,
       ClassName typeClass, TypeMirror type, List<TypeElement> lowPriorityProviders) {
+    // Type mirrors do not implement structural equality, but the generated code only depends on the type names
+    // (that are unambiguous in the scope of the context type element):
+    List<Object> resolution = Arrays.asList(typeElementContext, typeClassContext, typeClass, TypeName.get(type),
+        lowPriorityProviders);
+    DeriveResult<BoundExpression> instance = instanceResolutions.get(resolution);
+    if (instance == null) {
+      instanceResolutionsComputed++;
+      // not computeIfAbsent: resolution of instance constraints is recursive.
+      instance = resolveInstance(typeElementContext, typeClassContext, typeClass, type, lowPriorityProviders);
+      instanceResolutions.put(resolution, instance);
+    } else {
+      instanceResolutionsReused++;
+    }
+    return instance;
+  }
+
+  private DeriveResult<BoundExpression> resolveInstance(TypeElement typeElementContext, ClassName typeClassContext,
+      ClassName typeClass, TypeMirror type, List<TypeElement> lowPriorityProviders) {
     Optional<DeclaredType> maybeDeclaredType = asDeclaredType(asBoxedType.visit(type, types()));
     TypeElement typeClassElement = findTypeElement(typeClass).get();
 
@@ -813,10 +882,8 @@ final class DeriveUtilsImpl implements DeriveUtils {
                 concat(optionalAsStream(derivedCompanion), optionalAsStream(companionClass)))),
         lowPriorityProviders.stream());
 
-    TypeMirror rawTypeClass = Types.erasure(typeClass.asType());
-
     Function<TypeElement, Stream<InstanceLocation>> compiledInstanceIn = findCompiledInstanceIn(typeElement,
-        declaredType, deriveTarget, rawTypeClass);
+        declaredType, deriveTarget, typeClass);
 
     return concat(optionalAsStream(derivedCompanionExtend).flatMap(compiledInstanceIn)
         // ensure access through parent class as implementing class could be package
@@ -826,19 +893,13 @@ final class DeriveUtilsImpl implements DeriveUtils {
   }
 
   private Function<TypeElement, Stream<InstanceLocation>> findCompiledInstanceIn(TypeElement typeElement,
-      DeclaredType declaredType,
-      Optional<ClassName> deriveTarget, TypeMirror rawTypeClass) {
-    return instancesProvider -> concat(
-        allStaticFields(instancesProvider)
-            .filter(ve -> Types.isSameType(Types.erasure(ve.asType()), rawTypeClass))
+      DeclaredType declaredType, Optional<ClassName> deriveTarget, TypeElement typeClass) {
+    return instancesProvider -> instanceProviders(instancesProvider, typeClass).match((fields, methods) -> concat(
+        fields.stream()
             .flatMap(ve -> optionalAsStream(
                 asDeclaredType(ve.asType()).filter(dt -> Types.isSameType(dt.getTypeArguments().get(0), declaredType))
                     .map(te -> value(ClassName.get(instancesProvider), ve)))),
-        allStaticMethods(instancesProvider)
-            .filter(m -> Types.isSameType(Types.erasure(m.getReturnType()), rawTypeClass) && m.getParameters()
-                .stream()
-                .allMatch(
-                    ve -> asDeclaredType(ve.asType()).filter(dt -> dt.getTypeArguments().size() == 1).isPresent()))
+        methods.stream()
             .flatMap(m -> optionalAsStream(asDeclaredType(m.getReturnType())
                 .filter(
                     dt -> dt.getTypeArguments().get(0).getKind() != TypeKind.TYPEVAR) // TODO: also support type var
@@ -848,7 +909,35 @@ final class DeriveUtilsImpl implements DeriveUtils {
                     .anyMatch(am -> am.getAnnotationType().asElement().getSimpleName().contentEquals(
                         ExportAsPublic.class.getSimpleName())))
                             ? method(deriveTarget.orElse(ClassName.get(typeElement)), m, unificationSolution)
-                            : method(ClassName.get(instancesProvider), m, unificationSolution)))));
+                            : method(ClassName.get(instancesProvider), m, unificationSolution))))));
+  }
+
+  /**
+   * Static fields and methods of the instances provider that may provide instances of the type class, indexed once
+   * per round.
+   */
+  private P2<List<VariableElement>, List<ExecutableElement>> instanceProviders(TypeElement instancesProvider,
+      TypeElement typeClass) {
+    P2<TypeElement, TypeElement> key = p2(instancesProvider, typeClass);
+    P2<List<VariableElement>, List<ExecutableElement>> providers = instanceProviders.get(key);
+    if (providers == null) {
+      instanceProvidersIndexed++;
+      TypeMirror rawTypeClass = Types.erasure(typeClass.asType());
+      providers = p2(
+          allStaticFields(instancesProvider)
+              .filter(ve -> Types.isSameType(Types.erasure(ve.asType()), rawTypeClass))
+              .collect(toList()),
+          allStaticMethods(instancesProvider)
+              .filter(m -> Types.isSameType(Types.erasure(m.getReturnType()), rawTypeClass) && m.getParameters()
+                  .stream()
+                  .allMatch(
+                      ve -> asDeclaredType(ve.asType()).filter(dt -> dt.getTypeArguments().size() == 1).isPresent()))
+              .collect(toList()));
+      instanceProviders.put(key, providers);
+    } else {
+      instanceProvidersReused++;
+    }
+    return providers;
   }
 
   private OptionModel lazyOptionModel(String optionClassQualifiedName, String noneConstructor, String someConstructor) {
@@ -959,14 +1048,4 @@ final class DeriveUtilsImpl implements DeriveUtils {
                 .build())));
   }
 
-  private static Stream<TypeElement> getSuperTypeElements(TypeElement e) {
-
-    return concat(Stream.of(e.getSuperclass()), e.getInterfaces().stream()).map(asDeclaredType::visit)
-        .flatMap(Utils::optionalAsStream)
-        .map(DeclaredType::asElement)
-        .map(asTypeElement::visit)
-        .flatMap(Utils::optionalAsStream)
-        .flatMap(te -> concat(Stream.of(te), getSuperTypeElements(te)));
-  }
-
 }
@@ -26,8 +26,14 @@ import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeSpec;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -40,13 +46,14 @@ import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
-import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
+import org.derive4j.Data;
+import org.derive4j.Derive;
 import org.derive4j.processor.api.Derivator;
 import org.derive4j.processor.api.DerivatorFactory;
 import org.derive4j.processor.api.DerivatorSelections;
@@ -80,10 +87,21 @@ import static org.derive4j.processor.api.model.DeriveVisibilities.caseOf;
 import static org.derive4j.processor.api.model.DerivedInstanceConfigs.getImplSelector;
 import static org.derive4j.processor.api.model.DerivedInstanceConfigs.getTargetClass;
 
+/**
+ * Registered as an isolating incremental processor for Gradle: each generated file has the data type it is derived
+ * from as only originating element. All annotations are claimed by default, so that custom annotations (eg. from a
+ * dependency jar) are always followed. With the {@value #ANNOTATIONS_OPTION} option, only {@code @Data},
+ * {@code @Derive} and the listed custom annotations (comma separated qualified names, possibly none) are claimed.
+ * <p>
+ * With the {@value #STATS_OPTION} option, a note reporting how many lookups of the javac model were served from the
+ * round-scoped caches is printed at the end of processing.
+ */
 @AutoService(Processor.class)
-@SupportedAnnotationTypes("*")
 public final class DerivingProcessor extends AbstractProcessor {
 
+  static final String ANNOTATIONS_OPTION = "derive4j.annotations";
+  static final String STATS_OPTION       = "derive4j.stats";
+
   private static final Set<ElementKind>                   scannedElementKinds = EnumSet.of(ElementKind.CLASS,
       ElementKind.INTERFACE, ElementKind.ENUM);
   private final ArrayList<P2<String, RuntimeException>>   remainingElements   = new ArrayList<>();
@@ -99,6 +117,25 @@ public final class DerivingProcessor extends AbstractProcessor {
     return SourceVersion.latestSupported();
   }
 
+  @Override
+  public Set<String> getSupportedOptions() {
+    return new LinkedHashSet<>(Arrays.asList(ANNOTATIONS_OPTION, STATS_OPTION));
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    if ((processingEnv == null) || !processingEnv.getOptions().containsKey(ANNOTATIONS_OPTION)) {
+      return Collections.singleton("*");
+    }
+    Set<String> annotationTypes = new LinkedHashSet<>(Arrays.asList(Data.class.getName(), Derive.class.getName()));
+    Optional.ofNullable(processingEnv.getOptions().get(ANNOTATIONS_OPTION))
+        .ifPresent(option -> Arrays.stream(option.split(","))
+            .map(String::trim)
+            .filter(annotationType -> !annotationType.isEmpty())
+            .forEach(annotationTypes::add));
+    return annotationTypes;
+  }
+
   @Override
   public synchronized void init(ProcessingEnvironment processingEnv) {
     super.init(processingEnv);
@@ -119,8 +156,14 @@ public final class DerivingProcessor extends AbstractProcessor {
   @Override
   public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
 
+    deriveConfigBuilder.newRound();
+    deriveUtils.newRound();
+
     if (roundEnv.processingOver()) {
       remainingElements.forEach(e -> printErrorMessage(e._1(), e._2()));
+      if (processingEnv.getOptions().containsKey(STATS_OPTION)) {
+        printStats();
+      }
     } else {
       List<P2<TypeElement, DeriveConfig>> parsedRemainingElements = new ArrayList<>();
       remainingElements.forEach(e -> {
@@ -133,8 +176,7 @@ public final class DerivingProcessor extends AbstractProcessor {
       });
 
       final Stream<P2<TypeElement, DeriveConfig>> dataTypeElements = concat(parsedRemainingElements.stream(),
-          findAllElements(roundEnv.getRootElements().parallelStream()).sequential()
-              .flatMap(e -> optionalAsStream(deriveConfigBuilder.findDeriveConfig((TypeElement) e))));
+          annotatedTypes(annotations, roundEnv).flatMap(e -> optionalAsStream(deriveConfigBuilder.findDeriveConfig(e))));
 
       remainingElements.clear();
       dataTypeElements.map(e -> {
@@ -155,6 +197,18 @@ public final class DerivingProcessor extends AbstractProcessor {
     return false;
   }
 
+  private void printStats() {
+    MemberIndex memberIndex = deriveUtils.memberIndex();
+    processingEnv.getMessager()
+        .printMessage(Diagnostic.Kind.NOTE,
+            "Derive4J: derive configurations computed " + deriveConfigBuilder.deriveConfigMisses() + " times, reused "
+                + deriveConfigBuilder.deriveConfigHits() + " times; member lookups computed " + memberIndex.queries()
+                + " times, reused " + memberIndex.savedQueries() + " times; instance resolutions computed "
+                + deriveUtils.instanceResolutionsComputed() + " times, reused " + deriveUtils.instanceResolutionsReused()
+                + " times; instance providers indexed " + deriveUtils.instanceProvidersIndexed() + " times, reused "
+                + deriveUtils.instanceProvidersReused() + " times.");
+  }
+
   private IO<Unit> derivation(TypeElement element, DeriveConfig deriveConfig) {
 
     DeriveResult<AlgebraicDataType> parseResult = adtParser.parseAlgebraicDataType(element, deriveConfig);
@@ -194,6 +248,10 @@ public final class DerivingProcessor extends AbstractProcessor {
             extendErrors = getError(extendResult).map(messagePrint).map(extendErrors::then).orElse(extendErrors);
           }
 
+          // extensions may rebuild the class, but it must still be attributed to its data type:
+          if (!classSpec.originatingElements.contains(element)) {
+            classSpec = classSpec.toBuilder().addOriginatingElement(element).build();
+          }
           JavaFile javaFile = JavaFile.builder(targetClassName.packageName(), classSpec).build();
 
           return effect(() -> javaFile.writeTo(processingEnv.getFiler())).then(derivedInstances).then(extendErrors);
@@ -280,9 +338,41 @@ public final class DerivingProcessor extends AbstractProcessor {
             DerivatorSelections::getDerivator));
   }
 
-  private static Stream<Element> findAllElements(Stream<? extends Element> elements) {
-    return elements.filter(e -> scannedElementKinds.contains(e.getKind()))
-        .flatMap(e -> concat(Stream.of(e), findAllElements(e.getEnclosedElements().stream())));
+  /**
+   * The types of the round that are annotated by {@code @Data}, {@code @Derive} or by a custom annotation (that is itself
+   * annotated by them). Custom annotations declared in the round are followed even if they are not claimed, but are
+   * reported: types that only use them would not be reprocessed by an incremental compilation.
+   */
+  private Stream<TypeElement> annotatedTypes(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<String> claimedAnnotations = getSupportedAnnotationTypes();
+    Deque<TypeElement> pendingAnnotations = new ArrayDeque<>();
+    deriveConfigBuilder.deriveAnnotations().forEach(pendingAnnotations::add);
+    annotations.stream().filter(deriveConfigBuilder::isDeriveAnnotation).forEach(pendingAnnotations::add);
+
+    Set<TypeElement> seenAnnotations = new HashSet<>();
+    Set<TypeElement> annotatedTypes = new LinkedHashSet<>();
+    while (!pendingAnnotations.isEmpty()) {
+      TypeElement annotation = pendingAnnotations.poll();
+      if (seenAnnotations.add(annotation)) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+          if (element.getKind() == ElementKind.ANNOTATION_TYPE) {
+            TypeElement customAnnotation = (TypeElement) element;
+            pendingAnnotations.add(customAnnotation);
+            if (!claimedAnnotations.contains("*")
+                && !claimedAnnotations.contains(customAnnotation.getQualifiedName().toString())) {
+              processingEnv.getMessager()
+                  .printMessage(Diagnostic.Kind.WARNING, "Derive4J: custom annotation "
+                      + customAnnotation.getQualifiedName() + " should be added to the -A" + ANNOTATIONS_OPTION
+                      + " option, so that the types using it are processed by incremental compilations",
+                      customAnnotation);
+            }
+          } else if (scannedElementKinds.contains(element.getKind())) {
+            annotatedTypes.add((TypeElement) element);
+          }
+        }
+      }
+    }
+    return annotatedTypes.stream();
   }
 
   private static String showStackTrace(Throwable t) {
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataArgument;
+import org.derive4j.processor.api.model.DataConstructor;
+
+import static org.derive4j.processor.Utils.optionalAsStream;
+import static org.derive4j.processor.api.DeriveMessages.message;
+import static org.derive4j.processor.api.DeriveResult.error;
+import static org.derive4j.processor.api.DeriveResult.result;
+import static org.derive4j.processor.api.MessageLocalization.onElement;
+
+/**
+ * Derives a fixed-size binary layout for data types whose fields are all primitives or enums (a constructor tag byte
+ * if there are several constructors, followed by the fields of the constructor, in the byte order of the buffer), and
+ * a {@code Flyweight} implementation of the data type whose {@code match} method reads the fields of the record found
+ * at its current offset in a {@link ByteBuffer}. Moving a single flyweight over the records of a (possibly memory
+ * mapped) buffer allows to pattern match them without deserializing them.
+ */
+final class FlyweightDerivator implements Derivator {
+
+  private static final String FLYWEIGHT = "Flyweight";
+
+  private final DeriveUtils                deriveUtils;
+  private final StrictConstructorDerivator strictConstructorDerivator;
+
+  FlyweightDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+    strictConstructorDerivator = new StrictConstructorDerivator(deriveUtils);
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    if ((adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.ENUM) || constructors.isEmpty()) {
+      return result(DerivedCodeSpec.none());
+    }
+    if (!adt.typeConstructor().typeVariables().isEmpty() || (constructors.size() > Byte.MAX_VALUE)
+        || constructors.stream().anyMatch(dc -> !dc.typeRestrictions().isEmpty())) {
+      return error(message("Make.flyweight requires a data type without type parameters and with less than 128 constructors",
+          onElement(adt.typeConstructor().typeElement())));
+    }
+    Optional<DataArgument> unsupportedField = adt.fields().stream().filter(da -> width(da.type()) == 0).findFirst();
+    if (unsupportedField.isPresent()) {
+      return error(message("Make.flyweight requires fields of primitive or enum types, but "
+          + unsupportedField.get().fieldName() + " is of type " + unsupportedField.get().type(),
+          onElement(adt.typeConstructor().typeElement())));
+    }
+
+    boolean tagged = constructors.size() > 1;
+    int bytes = constructors.stream()
+        .mapToInt(dc -> (tagged ? 1 : 0) + dc.arguments().stream().mapToInt(da -> width(da.type())).sum())
+        .max()
+        .getAsInt();
+
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    ClassName flyweightName = adt.deriveConfig().targetClass().className().nestedClass(FLYWEIGHT);
+    String arg = Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName());
+
+    // names of the buffer and offset parameters must not shadow any field:
+    NameAllocator nameAllocator = new NameAllocator();
+    adt.fields().forEach(da -> nameAllocator.newName(da.fieldName(), da.fieldName()));
+    String buffer = nameAllocator.newName("buffer", "buffer");
+    String offset = nameAllocator.newName("offset", "offset");
+    String value = nameAllocator.newName(arg, arg);
+
+    // enum constants are stored by ordinal, read back from a cached copy of values():
+    NameAllocator enumValues = new NameAllocator();
+    List<FieldSpec> enumValuesFields = adt.fields()
+        .stream()
+        .map(DataArgument::type)
+        .filter(FlyweightDerivator::isEnum)
+        .map(t -> TypeName.get(deriveUtils.types().erasure(t)))
+        .distinct()
+        .map(t -> FieldSpec.builder(ArrayTypeName.of(t),
+            enumValues.newName(Utils.uncapitalize(((ClassName) t).simpleName()) + "Values", t),
+            Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL).initializer("$T.values()", t).build())
+        .collect(Collectors.toList());
+
+    TypeSpec.Builder flyweight = TypeSpec.classBuilder(FLYWEIGHT)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+        .addField(FieldSpec.builder(TypeName.INT, "BYTES", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .initializer("$L", bytes)
+            .build())
+        .addFields(enumValuesFields)
+        .addField(FieldSpec.builder(ByteBuffer.class, "buffer", Modifier.PRIVATE, Modifier.FINAL).build())
+        .addField(FieldSpec.builder(TypeName.INT, "offset", Modifier.PRIVATE).build())
+        .addMethod(MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(ByteBuffer.class, "buffer")
+            .addStatement("this.buffer = buffer")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("moveTo")
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(TypeName.INT, "offset")
+            .returns(flyweightName)
+            .addStatement("this.offset = offset")
+            .addStatement("return this")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("offset")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.INT)
+            .addStatement("return offset")
+            .build());
+    if (adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.INTERFACE) {
+      flyweight.addSuperinterface(adtType);
+    } else {
+      flyweight.superclass(adtType);
+    }
+
+    MethodSpec.Builder match = deriveUtils.overrideMethodBuilder(adt.matchMethod().element(),
+        adt.typeConstructor().declaredType());
+    MethodSpec.Builder copy = MethodSpec.methodBuilder("copy").addModifiers(Modifier.PUBLIC).returns(adtType);
+    if (tagged) {
+      match.beginControlFlow("switch (this.buffer.get(this.offset))");
+      copy.beginControlFlow("switch (this.buffer.get(this.offset))");
+    }
+    for (DataConstructor dc : constructors) {
+      CodeBlock reads = reads(adt, dc, enumValuesFields, "this.buffer", "this.offset");
+      if (tagged) {
+        match.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc));
+        copy.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc));
+      }
+      match.addStatement("return $L.$L($L)", dc.deconstructor().visitorParam().getSimpleName(),
+          dc.deconstructor().method().getSimpleName(), reads);
+      copy.addStatement("return $T.$L($L)", adt.deriveConfig().targetClass().className(), dc.name(), reads);
+      if (tagged) {
+        match.addCode("$<");
+        copy.addCode("$<");
+      }
+    }
+    if (tagged) {
+      for (MethodSpec.Builder method : new MethodSpec.Builder[] { match, copy }) {
+        method.addCode("default:\n$>")
+            .addStatement("throw new $T($S + this.buffer.get(this.offset))", IllegalStateException.class,
+                "Invalid constructor tag: ")
+            .addCode("$<")
+            .endControlFlow();
+      }
+    }
+    flyweight.addMethod(match.build()).addMethod(copy.build());
+
+    // values equality, hash code and string representation are those of the record:
+    flyweight.addMethods(optionalAsStream(
+        strictConstructorDerivator.findAbstractEquals(adt.typeConstructor().typeElement())
+            .map(equals -> deriveUtils.overrideMethodBuilder(equals, adt.typeConstructor().declaredType())
+                .addStatement("return copy().equals($L)", equals.getParameters().get(0).getSimpleName())
+                .build())).collect(Collectors.toList()));
+    flyweight.addMethods(optionalAsStream(
+        strictConstructorDerivator.findAbstractHashCode(adt.typeConstructor().typeElement())
+            .map(hashCode -> deriveUtils.overrideMethodBuilder(hashCode, adt.typeConstructor().declaredType())
+                .addStatement("return copy().hashCode()")
+                .build())).collect(Collectors.toList()));
+    flyweight.addMethods(optionalAsStream(
+        strictConstructorDerivator.findAbstractToString(adt.typeConstructor().typeElement())
+            .map(toString -> deriveUtils.overrideMethodBuilder(toString, adt.typeConstructor().declaredType())
+                .addStatement("return copy().toString()")
+                .build())).collect(Collectors.toList()));
+
+    // writers of the fields of a constructor, that do not need the value to be allocated:
+    for (DataConstructor dc : constructors) {
+      MethodSpec.Builder writer = MethodSpec.methodBuilder(writerName(dc))
+          .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+          .addParameter(ByteBuffer.class, buffer)
+          .addParameter(TypeName.INT, offset)
+          .addParameters(dc.arguments()
+              .stream()
+              .map(da -> ParameterSpec.builder(TypeName.get(da.type()), da.fieldName()).build())
+              .collect(Collectors.toList()))
+          .returns(TypeName.INT);
+      int position = 0;
+      if (tagged) {
+        writer.addStatement("$L.put($L, (byte) $L)", buffer, offset, StrictConstructorDerivator.ordinal(adt, dc));
+        position++;
+      }
+      for (DataArgument da : dc.arguments()) {
+        writer.addStatement("$L", write(da, buffer, position(offset, position)));
+        position += width(da.type());
+      }
+      flyweight.addMethod(writer.addStatement("return $L + BYTES", offset).build());
+    }
+
+    return result(DerivedCodeSpec.codeSpec(flyweight.addMethod(writeMethod(adt, constructors, adtType, buffer,
+        offset, value)).build(), Collections.emptyList()));
+  }
+
+  private MethodSpec writeMethod(AlgebraicDataType adt, List<DataConstructor> constructors, TypeName adtType,
+      String buffer, String offset, String value) {
+
+    // values that are not built by the generated constructors (eg. lazy ones) are destructured by a visitor:
+    CodeBlock match = CodeBlock.builder()
+        .addStatement("return $L.$L($L)", value, adt.matchMethod().element().getSimpleName(),
+            strictConstructorDerivator.constructorsVisitor(adt, value,
+                deriveUtils.elements().getTypeElement(Integer.class.getName()).asType(),
+                (dc, args) -> CodeBlock.of("$L($L, $L$L)", writerName(dc), buffer, offset,
+                    dc.arguments().isEmpty() ? "" : ", " + args)))
+        .build();
+
+    MethodSpec.Builder write = MethodSpec.methodBuilder("write")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addParameter(adtType, value)
+        .addParameter(ByteBuffer.class, buffer)
+        .addParameter(TypeName.INT, offset)
+        .returns(TypeName.INT);
+    if (!StrictConstructorDerivator.hasOrdinals(adt)) {
+      return write.addCode(match).build();
+    }
+
+    write.beginControlFlow("switch ($T._ordinal($L))", adt.deriveConfig().targetClass().className(), value);
+    for (DataConstructor dc : constructors) {
+      write.addCode("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+          .addStatement("return $L($L)", writerName(dc), Stream.concat(Stream.of(CodeBlock.of("$L, $L", buffer, offset)),
+              dc.arguments()
+                  .stream()
+                  .map(da -> CodeBlock.of("(($L) $L).$L",
+                      StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc), value, da.fieldName())))
+              .collect(CodeBlock.joining(", ")))
+          .addCode("$<");
+    }
+    return write.addCode("default:\n$>").addCode(match).addCode("$<").endControlFlow().build();
+  }
+
+  private CodeBlock reads(AlgebraicDataType adt, DataConstructor dc, List<FieldSpec> enumValuesFields, String buffer,
+      String offset) {
+
+    List<CodeBlock> reads = new ArrayList<>();
+    int position = adt.dataConstruction().constructors().size() > 1 ? 1 : 0;
+    for (DataArgument da : dc.arguments()) {
+      reads.add(read(da, enumValuesFields, buffer, position(offset, position)));
+      position += width(da.type());
+    }
+    return reads.stream().collect(CodeBlock.joining(", "));
+  }
+
+  private CodeBlock read(DataArgument da, List<FieldSpec> enumValuesFields, String buffer, String at) {
+    TypeMirror type = da.type();
+    if (isEnum(type)) {
+      TypeName enumType = TypeName.get(deriveUtils.types().erasure(type));
+      String values = enumValuesFields.stream()
+          .filter(f -> f.type.equals(ArrayTypeName.of(enumType)))
+          .findFirst()
+          .get().name;
+      return width(type) == 1
+          ? CodeBlock.of("$L[$L.get($L) & 0xFF]", values, buffer, at)
+          : CodeBlock.of("$L[$L.getShort($L) & 0xFFFF]", values, buffer, at);
+    }
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return CodeBlock.of("$L.get($L) != 0", buffer, at);
+      case BYTE:
+        return CodeBlock.of("$L.get($L)", buffer, at);
+      default:
+        return CodeBlock.of("$L.get$L($L)", buffer, Utils.capitalize(type.getKind().name().toLowerCase()), at);
+    }
+  }
+
+  private CodeBlock write(DataArgument da, String buffer, String at) {
+    TypeMirror type = da.type();
+    if (isEnum(type)) {
+      return width(type) == 1
+          ? CodeBlock.of("$L.put($L, (byte) $L.ordinal())", buffer, at, da.fieldName())
+          : CodeBlock.of("$L.putShort($L, (short) $L.ordinal())", buffer, at, da.fieldName());
+    }
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return CodeBlock.of("$L.put($L, (byte) ($L ? 1 : 0))", buffer, at, da.fieldName());
+      case BYTE:
+        return CodeBlock.of("$L.put($L, $L)", buffer, at, da.fieldName());
+      default:
+        return CodeBlock.of("$L.put$L($L, $L)", buffer, Utils.capitalize(type.getKind().name().toLowerCase()), at,
+            da.fieldName());
+    }
+  }
+
+  private static String position(String offset, int position) {
+    return position == 0 ? offset : offset + " + " + position;
+  }
+
+  private static String writerName(DataConstructor dc) {
+    return "write" + Utils.capitalize(dc.name());
+  }
+
+  private static boolean isEnum(TypeMirror type) {
+    return (type.getKind() == TypeKind.DECLARED) && (((DeclaredType) type).asElement().getKind() == ElementKind.ENUM);
+  }
+
+  /**
+   * Number of bytes used to store a value of the given type, or 0 if the type is not supported.
+   */
+  private static int width(TypeMirror type) {
+    if (isEnum(type)) {
+      long constants = ((DeclaredType) type).asElement()
+          .getEnclosedElements()
+          .stream()
+          .filter(e -> e.getKind() == ElementKind.ENUM_CONSTANT)
+          .count();
+      return constants <= 256 ? 1 : 2;
+    }
+    switch (type.getKind()) {
+      case BOOLEAN:
+      case BYTE:
+        return 1;
+      case SHORT:
+      case CHAR:
+        return 2;
+      case INT:
+      case FLOAT:
+        return 4;
+      case LONG:
+      case DOUBLE:
+        return 8;
+      default:
+        return 0;
+    }
+  }
+}
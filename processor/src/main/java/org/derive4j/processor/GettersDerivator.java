@@ -112,16 +112,22 @@ final class GettersDerivator implements Derivator {
 
     if (adt.typeConstructor().typeVariables().isEmpty()) {
       getter = getterBuilder(adt, arg, field, returnType)
-          .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(), getterField.name)
+          .addCode(directFieldReads(adt, arg, field, fieldRead -> optionalResult(optionModel, fieldRead),
+              CodeBlock.builder()
+                  .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(), getterField.name)
+                  .build()))
           .build();
     } else {
       getter = getterBuilder(adt, arg, field, returnType)
           .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
               .addMember("value", "{$S, $S}", "unchecked", "rawtypes")
               .build())
-          .addStatement("return ($T) $L.$L(($T) $L)", TypeName.get(returnType), arg,
-              adt.matchMethod().element().getSimpleName(), TypeName.get(deriveUtils.types().erasure(visitorType)),
-              getterField.name)
+          .addCode(directFieldReads(adt, arg, field, fieldRead -> optionalResult(optionModel, fieldRead),
+              CodeBlock.builder()
+                  .addStatement("return ($T) $L.$L(($T) $L)", TypeName.get(returnType), arg,
+                      adt.matchMethod().element().getSimpleName(),
+                      TypeName.get(deriveUtils.types().erasure(visitorType)), getterField.name)
+                  .build()))
           .build();
 
     }
@@ -142,6 +148,53 @@ final class GettersDerivator implements Derivator {
         .noConstructor(DerivedCodeSpec::none);
   }
 
+  /**
+   * Fields of instances created by the generated constructors are read directly, through a switch on the constructor
+   * ordinal if there are several constructors: contrary to a visitor call each case can be profiled and inlined (and
+   * primitive fields are not boxed). Lazy instances (and instances not created by the generated constructors) still go
+   * through {@code matchStatement}.
+   */
+  private CodeBlock directFieldReads(AlgebraicDataType adt, String arg, DataArgument field,
+      Function<Optional<CodeBlock>, CodeBlock> result, CodeBlock matchStatement) {
+
+    if (StrictConstructorDerivator.hasOrdinals(adt)) {
+      return PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, arg,
+          (dc, args) -> result.apply(fieldRead(adt, arg, dc, field)), matchStatement);
+    }
+
+    CodeBlock.Builder fieldReads = CodeBlock.builder();
+    if (StrictConstructorDerivator.hasConstructorClasses(adt)) {
+      for (DataConstructor dc : adt.dataConstruction().constructors()) {
+        fieldReads.beginControlFlow("if ($L instanceof $L)", arg,
+            StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc))
+            .addStatement("return $L", result.apply(fieldRead(adt, arg, dc, field)))
+            .endControlFlow();
+      }
+    }
+    return fieldReads.add(matchStatement).build();
+  }
+
+  private Optional<CodeBlock> fieldRead(AlgebraicDataType adt, String arg, DataConstructor dc, DataArgument field) {
+
+    return dc.arguments()
+        .stream()
+        .filter(da -> da.fieldName().equals(field.fieldName()))
+        .findFirst()
+        .map(da -> CodeBlock.of("(($T) $L).$L",
+            Utils.typeName(ClassName.bestGuess(StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc)),
+                adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get)),
+            arg, da.fieldName()));
+  }
+
+  private static CodeBlock optionalResult(OptionModel optionModel, Optional<CodeBlock> fieldRead) {
+
+    return fieldRead
+        .map(read -> CodeBlock.of("$T.$L($L)", ClassName.get(optionModel.typeElement()),
+            optionModel.someConstructor().getSimpleName(), read))
+        .orElseGet(() -> CodeBlock.of("$T.$L()", ClassName.get(optionModel.typeElement()),
+            optionModel.noneConstructor().getSimpleName()));
+  }
+
   private DerivedCodeSpec visitorDispatchLensGetterImpl(AlgebraicDataType adt, String arg, DeclaredType visitorType,
       DataArgument field) {
 
@@ -165,7 +218,9 @@ final class GettersDerivator implements Derivator {
 
     if (adt.typeConstructor().typeVariables().isEmpty()) {
       getter = getterBuilder(adt, arg, field, field.type())
-          .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(), getterField.name)
+          .addCode(directFieldReads(adt, arg, field, Optional::get, CodeBlock.builder()
+              .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(), getterField.name)
+              .build()))
           .build();
     } else {
 
@@ -173,9 +228,11 @@ final class GettersDerivator implements Derivator {
           .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
               .addMember("value", "{$S, $S}", "unchecked", "rawtypes")
               .build())
-          .addStatement("return ($T) $L.$L(($T) $L)", TypeName.get(field.type()), arg,
-              adt.matchMethod().element().getSimpleName(), TypeName.get(deriveUtils.types().erasure(visitorType)),
-              getterField.name)
+          .addCode(directFieldReads(adt, arg, field, Optional::get, CodeBlock.builder()
+              .addStatement("return ($T) $L.$L(($T) $L)", TypeName.get(field.type()), arg,
+                  adt.matchMethod().element().getSimpleName(), TypeName.get(deriveUtils.types().erasure(visitorType)),
+                  getterField.name)
+              .build()))
           .build();
 
     }
@@ -183,14 +240,17 @@ final class GettersDerivator implements Derivator {
     return DerivedCodeSpec.codeSpec(getterField, getter);
   }
 
-  private static DerivedCodeSpec functionsDispatchOptionalGetterImpl(OptionModel optionModel, AlgebraicDataType adt,
+  private DerivedCodeSpec functionsDispatchOptionalGetterImpl(OptionModel optionModel, AlgebraicDataType adt,
       String arg, List<DataConstructor> constructors, DataArgument field, DeclaredType returnType) {
 
-    return DerivedCodeSpec.methodSpec(getterBuilder(adt, arg, field, returnType).addCode(CodeBlock.builder()
-        .add("return $L.$L(", arg, adt.matchMethod().element().getSimpleName())
-        .add(optionalGetterLambdas(arg, optionModel, constructors, field))
-        .add(");")
-        .build()).build());
+    return DerivedCodeSpec.methodSpec(getterBuilder(adt, arg, field, returnType)
+        .addCode(directFieldReads(adt, arg, field, fieldRead -> optionalResult(optionModel, fieldRead),
+            CodeBlock.builder()
+                .add("return $L.$L(", arg, adt.matchMethod().element().getSimpleName())
+                .add(optionalGetterLambdas(arg, optionModel, constructors, field))
+                .add(");\n")
+                .build()))
+        .build());
   }
 
   private static MethodSpec.Builder getterBuilder(AlgebraicDataType adt, String arg, DataArgument field,
@@ -229,11 +289,14 @@ final class GettersDerivator implements Derivator {
         CodeBlock.builder().build());
   }
 
-  private static DerivedCodeSpec functionsDispatchLensGetterImpl(AlgebraicDataType adt, String arg,
-      DataArgument field) {
+  private DerivedCodeSpec functionsDispatchLensGetterImpl(AlgebraicDataType adt, String arg, DataArgument field) {
 
-    return DerivedCodeSpec.methodSpec(getterBuilder(adt, arg, field, field.type()).addStatement("return $L.$L($L)", arg,
-        adt.matchMethod().element().getSimpleName(), lensGetterLambda(arg, adt, field)).build());
+    return DerivedCodeSpec.methodSpec(getterBuilder(adt, arg, field, field.type())
+        .addCode(directFieldReads(adt, arg, field, Optional::get, CodeBlock.builder()
+            .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(),
+                lensGetterLambda(arg, adt, field))
+            .build()))
+        .build());
   }
 
   private static String lensGetterLambda(String arg, AlgebraicDataType adt, DataArgument field) {
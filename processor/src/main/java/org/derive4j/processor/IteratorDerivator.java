@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.lang.model.element.Modifier;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataArgument;
+import org.derive4j.processor.api.model.DataConstructor;
+
+import static org.derive4j.processor.api.DeriveResult.result;
+
+/**
+ * Derives pre-order and in-order iterators (and spliterators) over the sub-values of self-recursive data types. The
+ * traversal uses an explicit stack, so that it does not overflow the call stack on deep values, and the spliterators
+ * split that stack (or a batch of values for linear structures) to feed parallel streams, halving their size estimate.
+ */
+final class IteratorDerivator implements Derivator {
+
+  private static final String TRAVERSAL = "Traversal";
+
+  private final DeriveUtils                deriveUtils;
+  private final StrictConstructorDerivator strictConstructorDerivator;
+
+  IteratorDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+    strictConstructorDerivator = new StrictConstructorDerivator(deriveUtils);
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    // the traversal relies on the _strict and _ordinal methods of stack-safe data types:
+    if (!strictConstructorDerivator.stackSafe(adt)) {
+      return result(DerivedCodeSpec.none());
+    }
+
+    List<TypeVariableName> typeVariables = adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    ClassName traversalClassName = adt.deriveConfig().targetClass().className().nestedClass(TRAVERSAL);
+    TypeName traversalType = Utils.typeName(traversalClassName, typeVariables.stream().map(tv -> tv));
+    String arg = Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName());
+
+    TypeSpec traversal = traversal(adt, typeVariables, adtType, traversalType);
+
+    return result(DerivedCodeSpec.codeSpec(traversal, Arrays.asList(
+        traversalMethod(adt, "preOrderIterator", Iterator.class, typeVariables, adtType, arg, false),
+        traversalMethod(adt, "inOrderIterator", Iterator.class, typeVariables, adtType, arg, true),
+        traversalMethod(adt, "preOrderSpliterator", Spliterator.class, typeVariables, adtType, arg, false),
+        traversalMethod(adt, "inOrderSpliterator", Spliterator.class, typeVariables, adtType, arg, true))));
+  }
+
+  private static MethodSpec traversalMethod(AlgebraicDataType adt, String name, Class<?> traversalInterface,
+      List<TypeVariableName> typeVariables, TypeName adtType, String arg, boolean inOrder) {
+
+    return MethodSpec.methodBuilder(name)
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(typeVariables)
+        .addParameter(adtType, arg)
+        .returns(ParameterizedTypeName.get(ClassName.get(traversalInterface), adtType))
+        .addStatement("return new $L$L($L, $L)", TRAVERSAL, typeVariables.isEmpty() ? "" : "<>", arg, inOrder)
+        .build();
+  }
+
+  private TypeSpec traversal(AlgebraicDataType adt, List<TypeVariableName> typeVariables, TypeName adtType,
+      TypeName traversalType) {
+
+    TypeName consumerType = ParameterizedTypeName.get(ClassName.get(Consumer.class),
+        WildcardTypeName.supertypeOf(adtType));
+
+    MethodSpec.Builder next = MethodSpec.methodBuilder("next")
+        .addAnnotation(Override.class)
+        .addModifiers(Modifier.PUBLIC)
+        .returns(adtType)
+        .beginControlFlow("while (size > 0)")
+        .addStatement("$1T node = ($1T) stack[--size]", adtType)
+        .addStatement("stack[size] = null")
+        .beginControlFlow("if (emit[size])")
+        .addStatement("return node")
+        .endControlFlow()
+        // the traversed values are returned as is, _strict is only used to read their sub-values:
+        .addStatement("$T strict = $T._strict(node)", adtType, adt.deriveConfig().targetClass().className())
+        .beginControlFlow("switch ($T._ordinal(strict))", adt.deriveConfig().targetClass().className());
+    if (!typeVariables.isEmpty()) {
+      next.addAnnotation(
+          AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
+    }
+
+    for (DataConstructor dc : adt.dataConstruction().constructors()) {
+      List<DataArgument> recursiveArguments = dc.arguments()
+          .stream()
+          .filter(da -> strictConstructorDerivator.isRecursive(adt, da))
+          .collect(Collectors.toList());
+      if (recursiveArguments.isEmpty()) {
+        continue;
+      }
+      next.addCode("case $L: {\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+          .addStatement("$1T n = ($1T) strict", Utils.typeName(
+              ClassName.bestGuess(StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc)),
+              typeVariables.stream().map(tv -> tv)));
+      // pushed in reverse order, so that the first recursive field is traversed first:
+      for (int i = recursiveArguments.size() - 1; i > 0; i--) {
+        next.addStatement("push(n.$L, false)", recursiveArguments.get(i).fieldName());
+      }
+      next.beginControlFlow("if (inOrder)")
+          .addStatement("push(node, true)")
+          .addStatement("push(n.$L, false)", recursiveArguments.get(0).fieldName())
+          .addStatement("continue")
+          .endControlFlow()
+          .addStatement("push(n.$L, false)", recursiveArguments.get(0).fieldName())
+          .addStatement("return node")
+          .addCode("$<}\n");
+    }
+    next.addCode("default:\n$>").addStatement("return node").addCode("$<").endControlFlow().endControlFlow();
+
+    return TypeSpec.classBuilder(TRAVERSAL)
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .addTypeVariables(typeVariables)
+        .superclass(ParameterizedTypeName.get(ClassName.get(Spliterators.AbstractSpliterator.class), adtType))
+        .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Iterator.class), adtType))
+        .addField(TypeName.BOOLEAN, "inOrder", Modifier.PRIVATE, Modifier.FINAL)
+        // values to traverse, or (if emit) to return as is:
+        .addField(Object[].class, "stack", Modifier.PRIVATE)
+        .addField(boolean[].class, "emit", Modifier.PRIVATE)
+        .addField(TypeName.INT, "size", Modifier.PRIVATE)
+        // estimated number of remaining values: unknown for a whole value (that may be lazy and infinite), halved by
+        // each split of the stack and reduced by batches, and at least the number of pending values:
+        .addField(TypeName.LONG, "est", Modifier.PRIVATE)
+        .addMethod(MethodSpec.constructorBuilder()
+            .addParameter(adtType, "value")
+            .addParameter(TypeName.BOOLEAN, "inOrder")
+            .addStatement("this(new $T[16], new boolean[16], 0, inOrder, $T.MAX_VALUE)", Object.class, Long.class)
+            .addStatement("push(value, false)")
+            .build())
+        .addMethod(MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(Object[].class, "stack")
+            .addParameter(boolean[].class, "emit")
+            .addParameter(TypeName.INT, "size")
+            .addParameter(TypeName.BOOLEAN, "inOrder")
+            .addParameter(TypeName.LONG, "est")
+            .addStatement("super($T.MAX_VALUE, $T.ORDERED | $T.NONNULL | $T.IMMUTABLE)", Long.class,
+                Spliterator.class, Spliterator.class, Spliterator.class)
+            .addStatement("this.stack = stack")
+            .addStatement("this.emit = emit")
+            .addStatement("this.size = size")
+            .addStatement("this.inOrder = inOrder")
+            .addStatement("this.est = est")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("push")
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(Object.class, "value")
+            .addParameter(TypeName.BOOLEAN, "emitValue")
+            .beginControlFlow("if (value != null)")
+            .beginControlFlow("if (size == stack.length)")
+            .addStatement("stack = $T.copyOf(stack, size * 2)", Arrays.class)
+            .addStatement("emit = $T.copyOf(emit, size * 2)", Arrays.class)
+            .endControlFlow()
+            .addStatement("stack[size] = value")
+            .addStatement("emit[size++] = emitValue")
+            .endControlFlow()
+            .build())
+        .addMethod(MethodSpec.methodBuilder("hasNext")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.BOOLEAN)
+            .addStatement("return size > 0")
+            .build())
+        .addMethod(next.addStatement("throw new $T()", NoSuchElementException.class).build())
+        .addMethod(MethodSpec.methodBuilder("tryAdvance")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(consumerType, "action")
+            .returns(TypeName.BOOLEAN)
+            .beginControlFlow("if (size == 0)")
+            .addStatement("return false")
+            .endControlFlow()
+            .addStatement("action.accept(next())")
+            .addStatement("return true")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("forEachRemaining")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(consumerType, "action")
+            .beginControlFlow("while (size > 0)")
+            .addStatement("action.accept(next())")
+            .endControlFlow()
+            .build())
+        .addMethod(MethodSpec.methodBuilder("trySplit")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(ParameterizedTypeName.get(ClassName.get(Spliterator.class), adtType))
+            // the top of the stack is traversed first: it is split off as the prefix of the traversal.
+            .beginControlFlow("if (size > 1)")
+            .addStatement("int half = size / 2")
+            .addStatement("long prefixEst = est >>> 1")
+            .addStatement("$T prefix = new $T($T.copyOfRange(stack, half, stack.length), "
+                    + "$T.copyOfRange(emit, half, emit.length), size - half, inOrder, prefixEst)", traversalType,
+                traversalType, Arrays.class, Arrays.class)
+            .addStatement("$T.fill(stack, half, size, null)", Arrays.class)
+            .addStatement("size = half")
+            .addStatement("est -= prefixEst")
+            .addStatement("return prefix")
+            .endControlFlow()
+            // linear structures (eg. lists) are split by batches of values:
+            .addStatement("$T batch = super.trySplit()", ParameterizedTypeName.get(ClassName.get(Spliterator.class),
+                adtType))
+            .beginControlFlow("if (batch != null)")
+            .addStatement("est = $T.max(est - batch.estimateSize(), 0)", Math.class)
+            .endControlFlow()
+            .addStatement("return batch")
+            .build())
+        .addMethod(MethodSpec.methodBuilder("estimateSize")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(TypeName.LONG)
+            .addStatement("return (size == 0) ? 0 : $T.max(est, size)", Math.class)
+            .build())
+        .build();
+  }
+}
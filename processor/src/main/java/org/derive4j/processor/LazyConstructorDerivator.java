@@ -18,6 +18,7 @@
  */
 package org.derive4j.processor;
 
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
@@ -27,11 +28,14 @@ import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Collectors;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import org.derive4j.ArgOption;
 import org.derive4j.processor.api.Derivator;
 import org.derive4j.processor.api.DeriveResult;
 import org.derive4j.processor.api.DeriveUtils;
@@ -47,6 +51,8 @@ import static org.derive4j.processor.api.DerivedCodeSpec.none;
 
 final class LazyConstructorDerivator implements Derivator {
 
+  private static final String FORCING_EVENT = "ForcingEvent";
+
   private final DeriveUtils                deriveUtils;
   private final StrictConstructorDerivator strictDerivator;
 
@@ -81,47 +87,32 @@ final class LazyConstructorDerivator implements Derivator {
     TypeName lazyTypeName = typeVariableNames.isEmpty()
         ? className
         : ParameterizedTypeName.get(className, typeVariableNames.toArray(new TypeName[0]));
+    boolean lockFree = adt.deriveConfig().argOptions().contains(ArgOption.lockFreeLazy);
+    String evaluated = lockFree
+        ? "_evaluate()"
+        : "(this.expression == null ? this.evaluation : _evaluate())";
+
     TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder(className)
         .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
         .addTypeVariables(typeVariableNames)
         .addField(FieldSpec.builder(lazyArgTypeName, "expression", Modifier.PRIVATE, Modifier.VOLATILE).build())
-        .addField(FieldSpec.builder(typeName, "evaluation", Modifier.PRIVATE).build())
         .addMethod(MethodSpec.constructorBuilder()
             .addParameter(ParameterSpec.builder(lazyArgTypeName, lazyArgName).build())
             .addStatement("this.expression = $N", lazyArgName)
             .build())
-        .addMethod(MethodSpec.methodBuilder("_evaluate")
-            .addModifiers(Modifier.PRIVATE, Modifier.SYNCHRONIZED)
-            .returns(typeName)
-            .addCode(CodeBlock.builder()
-                .addStatement("$T lazy = this", lazyTypeName)
-                .beginControlFlow("while (true)")
-                .addStatement("$T expr = lazy.expression", lazyArgTypeName)
-                .beginControlFlow("if (expr == null)")
-                .addStatement("evaluation = lazy.evaluation", f0.sam())
-                .addStatement("break")
-                .endControlFlow()
-                .beginControlFlow("else")
-                .addStatement("$T eval = expr.$L", typeName, f0.sam())
-                .beginControlFlow("if (eval instanceof $T)", className)
-                .addStatement("lazy = ($T) eval", lazyTypeName)
-                .endControlFlow()
-                .beginControlFlow("else")
-                .addStatement("evaluation = eval")
-                .addStatement("break")
-                .endControlFlow()
-                .endControlFlow()
-                .endControlFlow()
-                .addStatement("expression = null")
-                .addStatement("return evaluation")
-                .build())
-            .build())
         .addMethod(Utils.overrideMethodBuilder(adt.matchMethod().element())
-            .addStatement("return (this.expression == null ? this.evaluation : _evaluate()).$L($L)",
-                adt.matchMethod().element().getSimpleName(),
+            .addStatement("return $L.$L($L)", evaluated, adt.matchMethod().element().getSimpleName(),
                 Utils.asArgumentsStringOld(adt.matchMethod().element().getParameters()))
             .build());
 
+    boolean jfrEvents = StrictConstructorDerivator.jfrEvents(adt);
+    if (lockFree) {
+      addLockFreeEvaluation(typeSpecBuilder, f0, className, lazyTypeName, lazyArgTypeName, typeName,
+          TypeName.get(deriveUtils.types().erasure(typeConstructor.declaredType())), jfrEvents);
+    } else {
+      addSynchronizedEvaluation(typeSpecBuilder, f0, className, lazyTypeName, lazyArgTypeName, typeName, jfrEvents);
+    }
+
     if (adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.INTERFACE) {
       typeSpecBuilder.addSuperinterface(typeName);
     } else {
@@ -130,21 +121,25 @@ final class LazyConstructorDerivator implements Derivator {
 
     typeSpecBuilder.addMethods(optionalAsStream(strictDerivator.findAbstractEquals(typeConstructor.typeElement())
         .map(equals -> deriveUtils.overrideMethodBuilder(equals, adt.typeConstructor().declaredType())
-            .addStatement("return (this.expression == null ? this.evaluation : _evaluate()).equals($L)",
-                equals.getParameters().get(0).getSimpleName())
+            .addStatement("return $L.equals($L)", evaluated, equals.getParameters().get(0).getSimpleName())
             .build())).collect(Collectors.toList()));
 
     typeSpecBuilder.addMethods(optionalAsStream(strictDerivator.findAbstractHashCode(typeConstructor.typeElement())
         .map(hashCode -> deriveUtils.overrideMethodBuilder(hashCode, adt.typeConstructor().declaredType())
-            .addStatement("return (this.expression == null ? this.evaluation : _evaluate()).hashCode()")
+            .addStatement("return $L.hashCode()", evaluated)
             .build())).collect(Collectors.toList()));
 
     typeSpecBuilder.addMethods(optionalAsStream(strictDerivator.findAbstractToString(typeConstructor.typeElement())
         .map(toString -> deriveUtils.overrideMethodBuilder(toString, adt.typeConstructor().declaredType())
-            .addStatement("return (this.expression == null ? this.evaluation : _evaluate()).toString()")
+            .addStatement("return $L.toString()", evaluated)
             .build())).collect(Collectors.toList()));
 
-    return result(codeSpec(typeSpecBuilder.build(),
+    DerivedCodeSpec forcingEvent = jfrEvents
+        ? codeSpec(StrictConstructorDerivator.jfrEventSpec(adt, FORCING_EVENT, "Forcing").build(),
+            Collections.emptyList())
+        : none();
+
+    return result(forcingEvent.append(codeSpec(typeSpecBuilder.build(),
         MethodSpec.methodBuilder("lazy")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .addTypeVariables(
@@ -152,8 +147,110 @@ final class LazyConstructorDerivator implements Derivator {
             .addParameter(lazyArgTypeName, lazyArgName)
             .returns(typeName)
             .addStatement("return new $L$L($L)", className, typeVariableNames.isEmpty() ? "" : "<>", lazyArgName)
-            .build()));
+            .build())));
+
+  }
+
+  private static void addSynchronizedEvaluation(TypeSpec.Builder typeSpecBuilder, SamInterface f0,
+      ClassName className, TypeName lazyTypeName, TypeName lazyArgTypeName, TypeName typeName, boolean jfrEvents) {
+
+    typeSpecBuilder.addField(FieldSpec.builder(typeName, "evaluation", Modifier.PRIVATE).build())
+        .addMethod(MethodSpec.methodBuilder("_evaluate")
+            .addModifiers(Modifier.PRIVATE, Modifier.SYNCHRONIZED)
+            .returns(typeName)
+            .addCode(beginForcingEvent(jfrEvents))
+            .addCode(CodeBlock.builder()
+                .addStatement("$T lazy = this", lazyTypeName)
+                .beginControlFlow("while (true)")
+                .addStatement("$T expr = lazy.expression", lazyArgTypeName)
+                .beginControlFlow("if (expr == null)")
+                .addStatement("evaluation = lazy.evaluation")
+                .addStatement("break")
+                .endControlFlow()
+                .beginControlFlow("else")
+                .addStatement("$T eval = expr.$L", typeName, f0.sam())
+                .beginControlFlow("if (eval instanceof $T)", className)
+                .addStatement("lazy = ($T) eval", lazyTypeName)
+                .endControlFlow()
+                .beginControlFlow("else")
+                .addStatement("evaluation = eval")
+                .addStatement("break")
+                .endControlFlow()
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("expression = null")
+                .add(commitForcingEvent(jfrEvents))
+                .addStatement("return evaluation")
+                .build())
+            .build());
+  }
+
+  // Publish-once: concurrent first calls may each run the expression, but only the first result to be CASed into
+  // 'evaluation' is ever observed. 'evaluation' is always written before 'expression' is cleared, so a reader that
+  // sees a null expression (including on a nested Lazy) is guaranteed to see the evaluation.
+  private static void addLockFreeEvaluation(TypeSpec.Builder typeSpecBuilder, SamInterface f0, ClassName className,
+      TypeName lazyTypeName, TypeName lazyArgTypeName, TypeName typeName, TypeName rawTypeName, boolean jfrEvents) {
+
+    typeSpecBuilder
+        .addField(FieldSpec
+            .builder(
+                ParameterizedTypeName.get(ClassName.get(AtomicReferenceFieldUpdater.class), className, rawTypeName),
+                "EVALUATION", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "rawtypes").build())
+            .initializer("$T.newUpdater($T.class, $T.class, $S)", AtomicReferenceFieldUpdater.class, className,
+                rawTypeName, "evaluation")
+            .build())
+        .addField(FieldSpec.builder(typeName, "evaluation", Modifier.PRIVATE, Modifier.VOLATILE).build())
+        .addMethod(MethodSpec.methodBuilder("_evaluate")
+            .addModifiers(Modifier.PRIVATE)
+            .returns(typeName)
+            .addCode(CodeBlock.builder()
+                .addStatement("$T evaluation = this.evaluation", typeName)
+                .beginControlFlow("if (evaluation == null)")
+                .add(beginForcingEvent(jfrEvents))
+                .addStatement("$T lazy = this", lazyTypeName)
+                .beginControlFlow("while (true)")
+                .addStatement("$T expr = lazy.expression", lazyArgTypeName)
+                .beginControlFlow("if (expr == null)")
+                .addStatement("evaluation = lazy.evaluation")
+                .addStatement("break")
+                .endControlFlow()
+                .addStatement("$T eval = expr.$L", typeName, f0.sam())
+                .beginControlFlow("if (eval instanceof $T)", className)
+                .addStatement("lazy = ($T) eval", lazyTypeName)
+                .endControlFlow()
+                .beginControlFlow("else")
+                .addStatement("evaluation = eval")
+                .addStatement("break")
+                .endControlFlow()
+                .endControlFlow()
+                .beginControlFlow("if (EVALUATION.compareAndSet(this, null, evaluation))")
+                .addStatement("expression = null")
+                .endControlFlow()
+                .beginControlFlow("else")
+                .addStatement("evaluation = this.evaluation")
+                .endControlFlow()
+                .add(commitForcingEvent(jfrEvents))
+                .endControlFlow()
+                .addStatement("return evaluation")
+                .build())
+            .build());
+  }
+
+  // only the first forcing of a lazy value (that runs its expression) is recorded:
+  private static CodeBlock beginForcingEvent(boolean jfrEvents) {
+    return jfrEvents
+        ? CodeBlock.builder()
+            .addStatement("$1L _event = new $1L()", FORCING_EVENT)
+            .addStatement("_event.begin()")
+            .build()
+        : CodeBlock.of("");
+  }
 
+  private static CodeBlock commitForcingEvent(boolean jfrEvents) {
+    return jfrEvents
+        ? CodeBlock.builder().addStatement("_event.commit()").build()
+        : CodeBlock.of("");
   }
 
 }
@@ -36,6 +36,7 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
+import org.derive4j.ArgOption;
 import org.derive4j.processor.api.Derivator;
 import org.derive4j.processor.api.DeriveResult;
 import org.derive4j.processor.api.DeriveUtils;
@@ -85,7 +86,7 @@ class MapperDerivator implements Derivator {
     int nbArgs = dc.arguments().size() + dc.typeRestrictions().size();
     return (nbArgs == 0)
         ? deriveUtils.function0Model(deriveConfig.flavour()).sam().getSimpleName().toString()
-        : nbArgs == 1
+        : !hasMapperInterface(deriveConfig, dc)
             ? deriveUtils.function1Model(deriveConfig.flavour()).sam().getSimpleName().toString()
             : dc.deconstructor().method().getSimpleName().toString();
   }
@@ -111,7 +112,7 @@ class MapperDerivator implements Derivator {
     return argsTypeNames.length == 0
         ? ParameterizedTypeName
             .get(ClassName.get(deriveUtils.function0Model(adt.deriveConfig().flavour()).samClass()), returnType)
-        : argsTypeNames.length == 1
+        : !hasMapperInterface(adt.deriveConfig(), dc)
             ? ParameterizedTypeName.get(
                 ClassName.get(deriveUtils.function1Model(adt.deriveConfig().flavour()).samClass()),
                 argsTypeNames[0], returnType)
@@ -148,7 +149,7 @@ class MapperDerivator implements Derivator {
         ? argsTypeNames.length == 0
             ? ParameterizedTypeName
                 .get(ClassName.get(deriveUtils.function0Model(adt.deriveConfig().flavour()).samClass()), returnType)
-            : argsTypeNames.length == 1
+            : !hasMapperInterface(adt.deriveConfig(), dc)
                 ? ParameterizedTypeName.get(
                     ClassName.get(deriveUtils.function1Model(adt.deriveConfig().flavour()).samClass()),
                     argsTypeNames[0], returnType)
@@ -252,12 +253,24 @@ class MapperDerivator implements Derivator {
         .build();
 
     return DerivedCodeSpec.codeSpec(
-        concat(constructors.stream().filter(dc -> (dc.arguments().size() + dc.typeRestrictions().size()) > 1).map(
-            this::mapperTypeSpec), Stream.of(lambdaVisitor)).collect(Collectors.toList()),
+        concat(constructors.stream()
+            .filter(dc -> hasMapperInterface(adt.deriveConfig(), dc))
+            .map(this::mapperTypeSpec),
+            Stream.of(lambdaVisitor)).collect(Collectors.toList()),
         lambdaVisitorFactory);
 
   }
 
+  /**
+   * Constructors with multiple arguments get a dedicated mapper interface, as do constructors with a single primitive
+   * argument when {@link ArgOption#unboxedPrimitives} is set: so that it is not boxed by the flavour function type.
+   */
+  static boolean hasMapperInterface(DeriveConfig deriveConfig, DataConstructor dc) {
+    int nbArgs = dc.arguments().size() + dc.typeRestrictions().size();
+    return (nbArgs > 1) || (deriveConfig.argOptions().contains(ArgOption.unboxedPrimitives) && (nbArgs == 1)
+        && (dc.arguments().size() == 1) && dc.arguments().get(0).type().getKind().isPrimitive());
+  }
+
   static String mapperInterfaceName(DataConstructor dc) {
 
     return Utils.capitalize(dc.name()) + "Mapper";
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.util.Elements;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+import static org.derive4j.processor.Utils.asDeclaredType;
+import static org.derive4j.processor.Utils.asTypeElement;
+import static org.derive4j.processor.Utils.getMethods;
+
+/**
+ * Members of type elements, as queried from the javac model, memoized until the next processing round.
+ */
+final class MemberIndex {
+
+  private final Elements                                  elements;
+  private final Predicate<ExecutableElement>              abstractMethod;
+  private final Map<TypeElement, List<Element>>           allMembers        = new HashMap<>();
+  private final Map<TypeElement, List<TypeElement>>       superTypeElements = new HashMap<>();
+  private final Map<TypeElement, List<ExecutableElement>> abstractMethods   = new HashMap<>();
+  private final Map<TypeElement, List<ExecutableElement>> declaredMethods   = new HashMap<>();
+  private int                                             queries;
+  private int                                             savedQueries;
+
+  MemberIndex(Elements elements, Predicate<ExecutableElement> abstractMethod) {
+    this.elements = elements;
+    this.abstractMethod = abstractMethod;
+  }
+
+  /**
+   * {@link Elements#getAllMembers(TypeElement)}.
+   */
+  List<Element> allMembers(TypeElement typeElement) {
+    return lookup(allMembers, typeElement, te -> new ArrayList<>(elements.getAllMembers(te)));
+  }
+
+  /**
+   * All (transitive) super classes and interfaces, in depth-first order of declaration.
+   */
+  List<TypeElement> superTypeElements(TypeElement typeElement) {
+    return lookup(superTypeElements, typeElement,
+        te -> Stream.concat(Stream.of(te.getSuperclass()), te.getInterfaces().stream())
+            .map(asDeclaredType::visit)
+            .flatMap(Utils::optionalAsStream)
+            .map(DeclaredType::asElement)
+            .map(asTypeElement::visit)
+            .flatMap(Utils::optionalAsStream)
+            .flatMap(superTypeElement -> Stream.concat(Stream.of(superTypeElement),
+                superTypeElements(superTypeElement).stream()))
+            .collect(toList()));
+  }
+
+  /**
+   * Abstract methods among all members, in no particular order, possibly containing override-equivalent methods.
+   */
+  List<ExecutableElement> abstractMethods(TypeElement typeElement) {
+    return lookup(abstractMethods, typeElement,
+        te -> getMethods(allMembers(te)).filter(abstractMethod).collect(toList()));
+  }
+
+  /**
+   * Methods declared by the super types and then by the type element itself, in order of declaration.
+   */
+  List<ExecutableElement> declaredMethods(TypeElement typeElement) {
+    return lookup(declaredMethods, typeElement,
+        te -> Stream.concat(superTypeElements(te).stream(), Stream.of(te))
+            .flatMap(e -> getMethods(e.getEnclosedElements()))
+            .collect(toList()));
+  }
+
+  /**
+   * Invalidates memoized members: must be called at the start of each processing round.
+   */
+  void newRound() {
+    allMembers.clear();
+    superTypeElements.clear();
+    abstractMethods.clear();
+    declaredMethods.clear();
+  }
+
+  /**
+   * Number of lookups that were computed from the javac model.
+   */
+  int queries() {
+    return queries;
+  }
+
+  /**
+   * Number of lookups that were served by the index.
+   */
+  int savedQueries() {
+    return savedQueries;
+  }
+
+  private <A> List<A> lookup(Map<TypeElement, List<A>> index, TypeElement typeElement,
+      Function<TypeElement, List<A>> query) {
+    List<A> members = index.get(typeElement);
+    if (members == null) {
+      queries++;
+      // not computeIfAbsent: queries may recursively update the index.
+      members = unmodifiableList(query.apply(typeElement));
+      index.put(typeElement, members);
+    } else {
+      savedQueries++;
+    }
+    return members;
+  }
+}
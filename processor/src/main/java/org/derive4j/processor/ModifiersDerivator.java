@@ -30,13 +30,18 @@ import com.squareup.javapoet.TypeVariableName;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
+import org.derive4j.ArgOption;
+import org.derive4j.Flavour;
 import org.derive4j.processor.api.Derivator;
 import org.derive4j.processor.api.DeriveResult;
 import org.derive4j.processor.api.DeriveUtils;
@@ -70,7 +75,12 @@ final class ModifiersDerivator implements Derivator {
 
     String moderArg = field.fieldName() + "Mod";
     TypeElement f1 = deriveUtils.function1Model(adt.deriveConfig().flavour()).samClass();
-    String f1Apply = deriveUtils.allAbstractMethods(f1).get(0).getSimpleName().toString();
+    // with the JDK flavour, int, long and double fields can be modified without boxing:
+    boolean unboxedPrimitives = adt.deriveConfig().argOptions().contains(ArgOption.unboxedPrimitives);
+    Optional<TypeElement> primitiveOperator = (unboxedPrimitives && (adt.deriveConfig().flavour() == Flavour.JDK))
+        ? primitiveOperator(field.type())
+        : Optional.empty();
+    String f1Apply = deriveUtils.allAbstractMethods(primitiveOperator.orElse(f1)).get(0).getSimpleName().toString();
 
     List<TypeVariable> uniqueTypeVariables = getUniqueTypeVariables(field, adt.fields(), deriveUtils);
 
@@ -98,8 +108,9 @@ final class ModifiersDerivator implements Derivator {
         .addTypeVariables(uniqueTypeVariables.stream()
             .map(utv -> TypeVariableName.get(adt.matchMethod().returnTypeVariable().toString() + utv.toString()))
             .collect(Collectors.toList()))
-        .addParameter(ParameterSpec.builder(ParameterizedTypeName.get(ClassName.get(f1), TypeName.get(boxedFieldType),
-            deriveUtils.resolveToTypeName(boxedFieldType, polymorphism)), moderArg).build())
+        .addParameter(ParameterSpec.builder(primitiveOperator.<TypeName>map(ClassName::get).orElseGet(
+            () -> ParameterizedTypeName.get(ClassName.get(f1), TypeName.get(boxedFieldType),
+                deriveUtils.resolveToTypeName(boxedFieldType, polymorphism))), moderArg).build())
         .returns(ParameterizedTypeName.get(ClassName.get(f1), TypeName.get(adt.typeConstructor().declaredType()),
             deriveUtils.resolveToTypeName(adt.typeConstructor().declaredType(), polymorphism)));
 
@@ -145,8 +156,9 @@ final class ModifiersDerivator implements Derivator {
         .addTypeVariables(uniqueTypeVariables.stream()
             .map(utv -> TypeVariableName.get(adt.matchMethod().returnTypeVariable().toString() + utv.toString()))
             .collect(Collectors.toList()))
-        .addParameter(
-            ParameterSpec.builder(deriveUtils.resolveToTypeName(boxedFieldType, polymorphism), setterArgName).build())
+        .addParameter(ParameterSpec.builder(unboxedPrimitives && field.type().getKind().isPrimitive()
+            ? TypeName.get(field.type())
+            : deriveUtils.resolveToTypeName(boxedFieldType, polymorphism), setterArgName).build())
         .returns(ParameterizedTypeName.get(ClassName.get(f1), TypeName.get(adt.typeConstructor().declaredType()),
             deriveUtils.resolveToTypeName(adt.typeConstructor().declaredType(), polymorphism)))
         .addStatement("return $L(__ -> $L)", modMethodName, setterArgName);
@@ -192,6 +204,24 @@ final class ModifiersDerivator implements Derivator {
         .noConstructor(DerivedCodeSpec::none);
   }
 
+  private Optional<TypeElement> primitiveOperator(TypeMirror fieldType) {
+    Class<?> operator;
+    switch (fieldType.getKind()) {
+      case INT:
+        operator = IntUnaryOperator.class;
+        break;
+      case LONG:
+        operator = LongUnaryOperator.class;
+        break;
+      case DOUBLE:
+        operator = DoubleUnaryOperator.class;
+        break;
+      default:
+        return Optional.empty();
+    }
+    return Optional.of(deriveUtils.elements().getTypeElement(operator.getName()));
+  }
+
   private static List<TypeVariable> getUniqueTypeVariables(DataArgument field, List<DataArgument> allFields,
       DeriveUtils deriveUtils) {
 
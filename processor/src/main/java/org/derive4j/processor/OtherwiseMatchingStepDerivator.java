@@ -32,6 +32,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -392,26 +393,34 @@ class OtherwiseMatchingStepDerivator {
                 adt.typeConstructor().declaredType(), adt.matchMethod().returnTypeVariable()))
         : TypeName.get(adt.matchMethod().returnTypeVariable());
 
-    return Arrays
-        .asList(MethodSpec.methodBuilder("otherwise")
-            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-            .addParameter(
-                ParameterSpec
-                    .builder(
-                        TypeName.get(deriveUtils.types().getDeclaredType(f0, adt.matchMethod().returnTypeVariable())),
-                        "otherwise")
-                    .build())
-            .returns(returnType)
-            .addCode(
-                caseOf(adt.dataConstruction())
-                    .multipleConstructors(MultipleConstructorsSupport.cases()
-                        .visitorDispatch((visitorParam, visitorType, constructors) -> visitorDispatchImpl(f0, adt,
-                            visitorType, visitorParam))
-                        .functionsDispatch(constructors -> functionsDispatchImpl(f0, adt, constructors)))
-                    .otherwise(() -> {
-                      throw new IllegalArgumentException();
-                    }))
-            .build(),
+    MethodSpec.Builder otherwiseMethod = MethodSpec.methodBuilder("otherwise")
+        .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        .addParameter(ParameterSpec
+            .builder(TypeName.get(deriveUtils.types().getDeclaredType(f0, adt.matchMethod().returnTypeVariable())),
+                "otherwise")
+            .build())
+        .returns(returnType);
+
+    List<MethodSpec> staticOtherwiseMethod = Collections.emptyList();
+
+    if ((matchingKind == PatternMatchingDerivator.MatchingKind.CaseOf) && StrictConstructorDerivator.hasOrdinals(adt)) {
+      MethodSpec staticOtherwise = staticSwitchMethod(adt, "_otherwise", true);
+      staticOtherwiseMethod = Collections.singletonList(staticOtherwise);
+      otherwiseMethod.addStatement("return $N(this.$N, $L, otherwise)", staticOtherwise,
+          PatternMatchingDerivator.asFieldSpec(adt), joinStringsAsArguments(
+              adt.dataConstruction().constructors().stream().map(dc -> "this." + MapperDerivator.mapperFieldName(dc))));
+    } else {
+      otherwiseMethod.addCode(caseOf(adt.dataConstruction())
+          .multipleConstructors(MultipleConstructorsSupport.cases()
+              .visitorDispatch(
+                  (visitorParam, visitorType, constructors) -> visitorDispatchImpl(f0, adt, visitorType, visitorParam))
+              .functionsDispatch(constructors -> functionsDispatchImpl(f0, adt, constructors)))
+          .otherwise(() -> {
+            throw new IllegalArgumentException();
+          }));
+    }
+
+    return Stream.concat(Stream.of(otherwiseMethod.build(),
             MethodSpec.methodBuilder("otherwise_")
                 .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
                 .addParameter(TypeName.get(adt.matchMethod().returnTypeVariable()),
@@ -419,7 +428,81 @@ class OtherwiseMatchingStepDerivator {
                 .addStatement("return this.$L(() -> $L)", "otherwise",
                     uncapitalize(adt.matchMethod().returnTypeVariable().toString()))
                 .returns(returnType)
-                .build());
+                .build()),
+        staticOtherwiseMethod.stream()).collect(Collectors.toList());
+  }
+
+  /**
+   * Ordinal switch of CaseOf matching as a static method: the matched value and the mappers are passed as arguments
+   * instead of being read from the matcher fields, so that the matcher does not escape (and can be scalar replaced)
+   * even when the switch is too big to be inlined. If {@code withOtherwise} null mappers fallback to an
+   * {@code otherwise} argument.
+   */
+  MethodSpec staticSwitchMethod(AlgebraicDataType adt, String methodName, boolean withOtherwise) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    TypeElement f0 = deriveUtils.function0Model(adt.deriveConfig().flavour()).samClass();
+    TypeVariable returnTypeVariable = adt.matchMethod().returnTypeVariable();
+    String otherwiseCall = "otherwise." + deriveUtils.allAbstractMethods(f0).get(0).getSimpleName() + "()";
+
+    ParameterSpec adtParamSpec = PatternMatchingDerivator.asParameterSpec(adt);
+    NameAllocator nameAllocator = new NameAllocator();
+    nameAllocator.newName(adtParamSpec.name, "adt var");
+    if (withOtherwise) {
+      nameAllocator.newName("otherwise", "otherwise arg");
+    }
+    constructors.forEach(dc -> nameAllocator.newName(MapperDerivator.mapperFieldName(dc), dc.name()));
+
+    CodeBlock mappers = constructors.stream()
+        .map(dc -> withOtherwise
+            ? CodeBlock.of("($1L != null) ? $1L : ($2L) -> $3L", nameAllocator.get(dc.name()),
+                Utils.asLambdaParametersString(dc.arguments(), dc.typeRestrictions(), nameAllocator.clone()),
+                otherwiseCall)
+            : CodeBlock.of("$L", nameAllocator.get(dc.name())))
+        .collect(CodeBlock.joining(",\n"));
+
+    String typeVarArgs = PatternMatchingDerivator.matcherVariables(adt)
+        .map(TypeVariable::toString)
+        .collect(Collectors.joining(", "));
+
+    CodeBlock defaultCase = caseOf(adt.dataConstruction())
+        .multipleConstructors(MultipleConstructorsSupport.cases()
+            .visitorDispatch((visitorParam, visitorType, dcs) -> CodeBlock.builder()
+                .addStatement("return $L.$L($T.<$L>$L($L))", adtParamSpec.name,
+                    adt.matchMethod().element().getSimpleName(), adt.deriveConfig().targetClass().className(),
+                    typeVarArgs, MapperDerivator.visitorLambdaFactoryName(adt), mappers)
+                .build())
+            .functionsDispatch(dcs -> CodeBlock.builder()
+                .addStatement("return $L.<$T>$L($L)", adtParamSpec.name, TypeVariableName.get(returnTypeVariable),
+                    adt.matchMethod().element().getSimpleName(), mappers)
+                .build()))
+        .otherwise(() -> {
+          throw new IllegalArgumentException();
+        });
+
+    MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(methodName)
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+        .addTypeVariables(
+            PatternMatchingDerivator.matcherVariables(adt).map(TypeVariableName::get).collect(Collectors.toList()))
+        .returns(TypeVariableName.get(returnTypeVariable))
+        .addParameter(adtParamSpec)
+        .addParameters(constructors.stream()
+            .map(dc -> ParameterSpec.builder(mapperDerivator.mapperTypeName(adt, dc), nameAllocator.get(dc.name()))
+                .build())
+            .collect(Collectors.toList()));
+
+    if (withOtherwise) {
+      methodBuilder.addParameter(TypeName.get(deriveUtils.types().getDeclaredType(f0, returnTypeVariable)),
+          nameAllocator.get("otherwise arg"));
+    }
+
+    return methodBuilder.addCode(PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, adtParamSpec.name,
+        (dc, args) -> withOtherwise
+            ? CodeBlock.of("($1L != null) ? $1L.$2L($3L) : $4L", nameAllocator.get(dc.name()),
+                mapperDerivator.mapperApplyMethod(adt.deriveConfig(), dc), args, otherwiseCall)
+            : CodeBlock.of("$L.$L($L)", nameAllocator.get(dc.name()),
+                mapperDerivator.mapperApplyMethod(adt.deriveConfig(), dc), args),
+        defaultCase)).build();
   }
 
   private MethodSpec otherwiseNoneMethod(AlgebraicDataType adt) {
@@ -477,6 +560,14 @@ class OtherwiseMatchingStepDerivator {
 
     String adtLambdaParam = uncapitalize(adt.typeConstructor().declaredType().asElement().getSimpleName());
 
+    if (StrictConstructorDerivator.hasOrdinals(adt)) {
+      return otherwiseSwitchImpl(f0, adt, adtLambdaParam, codeBlock.build(),
+          adtVar -> CodeBlock.builder()
+              .addStatement("return $L.$L($L)", adtVar, adt.matchMethod().element().getSimpleName(),
+                  joinStringsAsArguments(constructors.stream().map(MapperDerivator::mapperFieldName)))
+              .build());
+    }
+
     String template;
     Object templateArg;
     if (matchingKind == PatternMatchingDerivator.MatchingKind.Cases) {
@@ -536,6 +627,14 @@ class OtherwiseMatchingStepDerivator {
     CodeBlock.Builder implBuilder = CodeBlock.builder().addStatement("$T $L = $T.<$L>$L($L)", TypeName.get(visitorType),
         nameAllocator.get("visitor var"), adt.deriveConfig().targetClass().className(), typeVarArgs,
         MapperDerivator.visitorLambdaFactoryName(adt), lambdaArgs);
+
+    if (StrictConstructorDerivator.hasOrdinals(adt)) {
+      return otherwiseSwitchImpl(f0, adt, nameAllocator.get("adt var"), implBuilder.build(),
+          adtVar -> CodeBlock.builder()
+              .addStatement("return $L.$L($L)", adtVar, adt.matchMethod().element().getSimpleName(),
+                  nameAllocator.get("visitor var"))
+              .build());
+    }
     if (matchingKind == PatternMatchingDerivator.MatchingKind.Cases) {
       implBuilder.addStatement("return $1L -> $1L.$2L($3L)", nameAllocator.get("adt var"),
           adt.matchMethod().element().getSimpleName(), nameAllocator.get("visitor var"));
@@ -546,6 +645,27 @@ class OtherwiseMatchingStepDerivator {
     return implBuilder.build();
   }
 
+  /**
+   * Switch on the constructor ordinal, calling {@code otherwise} for unmatched constructors, as the body of the
+   * function returned by Cases matching: {@code mappers} is created once, with the matcher, for the default case.
+   */
+  private CodeBlock otherwiseSwitchImpl(TypeElement f0, AlgebraicDataType adt, String adtLambdaParam,
+      CodeBlock mappers, Function<String, CodeBlock> defaultCase) {
+
+    String otherwiseCall = "otherwise." + deriveUtils.allAbstractMethods(f0).get(0).getSimpleName() + "()";
+
+    return CodeBlock.builder()
+        .add(mappers)
+        .add("return $L -> {\n$>", adtLambdaParam)
+        .add(PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, adtLambdaParam,
+            (dc, args) -> CodeBlock.of("(this.$1L != null) ? this.$1L.$2L($3L) : $4L",
+                MapperDerivator.mapperFieldName(dc), mapperDerivator.mapperApplyMethod(adt.deriveConfig(), dc), args,
+                otherwiseCall),
+            defaultCase.apply(adtLambdaParam)))
+        .add("$<};\n")
+        .build();
+  }
+
   static ParameterizedTypeName otherwiseMatcherTypeName(AlgebraicDataType adt) {
     return ParameterizedTypeName.get(ClassName.bestGuess(otherwiseBuilderClassName()),
         PatternMatchingDerivator.matcherVariables(adt).map(TypeVariableName::get).toArray(TypeName[]::new));
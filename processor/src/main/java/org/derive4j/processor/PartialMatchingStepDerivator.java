@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.lang.model.element.Modifier;
+import org.derive4j.ArgOption;
 import org.derive4j.processor.api.DeriveUtils;
 import org.derive4j.processor.api.model.AlgebraicDataType;
 import org.derive4j.processor.api.model.DataConstructor;
@@ -56,7 +57,7 @@ class PartialMatchingStepDerivator {
     return TypeSpec.classBuilder(partialMatchBuilderClassName(currentConstructor))
         .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
         .addTypeVariables(PatternMatchingDerivator.matcherVariables(adt).map(TypeVariableName::get).collect(toList()))
-        .superclass(nextStepTypeName)
+        .superclass(stepSuperClass(adt, nextConstructors))
         .addMethod(MethodSpec.constructorBuilder()
             .addParameters(
                 (matchingKind == PatternMatchingDerivator.MatchingKind.CaseOf) ? singleton(adtParamSpec) : emptyList())
@@ -65,17 +66,62 @@ class PartialMatchingStepDerivator {
                     .builder(mapperDerivator.mapperTypeName(adt, dc), MapperDerivator.mapperFieldName(dc))
                     .build())
                 .collect(toList()))
-            .addStatement("super($L)",
-                (matchingKind == PatternMatchingDerivator.MatchingKind.CaseOf ? adtParamSpec.name + ", " : "")
-                    + joinStringsAsArguments(Stream.concat(
-                        previousConstructors.stream().map(MapperDerivator::mapperFieldName), Stream.of("null"))))
+            .addStatement("super($L)", superConstructorArgs(adt, previousConstructors))
             .build())
-        .addMethods(partialMatchMethodBuilder(adt, previousConstructors, 0, currentConstructor, nextStepTypeName)
-            .map(MethodSpec.Builder::build)
-            .collect(toList()))
+        .addMethods((flatSteps(adt)
+            ? partialMatchMethods(adt, previousConstructors.size())
+            : partialMatchMethodBuilder(adt, previousConstructors, 0, currentConstructor, nextStepTypeName))
+                .map(MethodSpec.Builder::build)
+                .collect(toList()))
         .build();
   }
 
+  /**
+   * Whether the matching steps of {@code adt} all directly extend the otherwise step, each one declaring the partial
+   * matching methods of all the remaining constructors, instead of extending the step of the next constructor. With a
+   * class hierarchy deeper than the inlining limit (MaxInlineLevel) the JIT gives up inlining the chain of step
+   * constructors, and thus cannot eliminate the allocation of the steps. But for smaller data types the chained steps
+   * are faster (and generate a linear number of methods instead of a quadratic one), and flat steps change the type
+   * hierarchy of the public step API: they are opt-in, with {@link ArgOption#flatMatchingSteps}.
+   */
+  static boolean flatSteps(AlgebraicDataType adt) {
+    return adt.deriveConfig().argOptions().contains(ArgOption.flatMatchingSteps);
+  }
+
+  /**
+   * Super class of a step: the partial matching step of the first of the {@code nextConstructors} or, with
+   * {@link #flatSteps}, the otherwise step.
+   */
+  ParameterizedTypeName stepSuperClass(AlgebraicDataType adt, List<DataConstructor> nextConstructors) {
+    return flatSteps(adt)
+        ? OtherwiseMatchingStepDerivator.otherwiseMatcherTypeName(adt)
+        : superClass(adt, matchingKind, nextConstructors);
+  }
+
+  /**
+   * Partial matching methods for the constructors starting at index {@code fromConstructor}, for {@link #flatSteps}.
+   */
+  Stream<MethodSpec.Builder> partialMatchMethods(AlgebraicDataType adt, int fromConstructor) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    return IntStream.range(fromConstructor, constructors.size())
+        .boxed()
+        .flatMap(i -> partialMatchMethodBuilder(adt, constructors.subList(0, i), 0, constructors.get(i),
+            superClass(adt, matchingKind, constructors.subList(i + 1, constructors.size()))));
+  }
+
+  String superConstructorArgs(AlgebraicDataType adt, List<DataConstructor> previousConstructors) {
+
+    return (matchingKind == PatternMatchingDerivator.MatchingKind.CaseOf
+        ? PatternMatchingDerivator.asParameterSpec(adt).name + ", "
+        : "")
+        + joinStringsAsArguments(Stream.concat(previousConstructors.stream().map(MapperDerivator::mapperFieldName),
+            IntStream
+                .range(previousConstructors.size(),
+                    flatSteps(adt) ? adt.dataConstruction().constructors().size() : (previousConstructors.size() + 1))
+                .mapToObj(__ -> "null")));
+  }
+
   Stream<MethodSpec.Builder> partialMatchMethodBuilder(AlgebraicDataType adt,
       List<DataConstructor> previousConstructors, int nbSkipConstructors, DataConstructor currentConstructor,
       ParameterizedTypeName returnType) {
@@ -20,6 +20,7 @@ package org.derive4j.processor;
 
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.NameAllocator;
@@ -29,6 +30,7 @@ import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import com.squareup.javapoet.WildcardTypeName;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -179,6 +181,34 @@ class PatternMatchingDerivator implements Derivator {
             currentConstructor.arguments(), currentConstructor.typeRestrictions(), nameAllocator), argName);
   }
 
+  /**
+   * Dispatch on the constructor ordinal of {@code adtVar}, with direct access to the fields of the generated
+   * constructor classes. {@code defaultCase} handles instances that are not built by the generated constructors (eg.
+   * lazy values).
+   */
+  static CodeBlock ordinalSwitch(DeriveUtils deriveUtils, AlgebraicDataType adt, String adtVar,
+      BiFunction<DataConstructor, CodeBlock, CodeBlock> caseResult, CodeBlock defaultCase) {
+
+    CodeBlock.Builder ordinalSwitch = CodeBlock.builder().beginControlFlow("switch ($T._ordinal($L))",
+        adt.deriveConfig().targetClass().className(), adtVar);
+
+    for (DataConstructor dc : adt.dataConstruction().constructors()) {
+      TypeName constructorType = Utils.typeName(
+          ClassName.bestGuess(StrictConstructorDerivator.constructorClassName(deriveUtils, adt, dc)),
+          adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get));
+
+      ordinalSwitch.add("case $L:\n$>", StrictConstructorDerivator.ordinal(adt, dc))
+          .addStatement("return $L", caseResult.apply(dc,
+              dc.arguments()
+                  .stream()
+                  .map(da -> CodeBlock.of("(($T) $L).$L", constructorType, adtVar, da.fieldName()))
+                  .collect(CodeBlock.joining(", "))))
+          .add("$<");
+    }
+
+    return ordinalSwitch.add("default:\n$>").add(defaultCase).add("$<").endControlFlow().build();
+  }
+
   static Stream<TypeVariable> matcherVariables(AlgebraicDataType adt) {
 
     return Stream.concat(adt.typeConstructor().typeVariables().stream(),
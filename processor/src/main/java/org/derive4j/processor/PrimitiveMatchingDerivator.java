@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.NameAllocator;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongBiFunction;
+import java.util.function.ToLongFunction;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import org.derive4j.processor.api.Derivator;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveUtils;
+import org.derive4j.processor.api.DerivedCodeSpec;
+import org.derive4j.processor.api.model.AlgebraicDataType;
+import org.derive4j.processor.api.model.DataArgument;
+import org.derive4j.processor.api.model.DataConstructor;
+import org.derive4j.processor.api.model.DataConstructions;
+
+import static java.util.stream.Collectors.toList;
+import static org.derive4j.processor.Utils.asBoxedType;
+
+/**
+ * Derives {@code matchInt}, {@code matchLong}, {@code matchDouble} and {@code matchBoolean}: pattern matching with a
+ * primitive result, that dispatches with a switch on the constructor ordinal instead of going through the generic
+ * {@code match} method, so that the result is never boxed. Lazy values are matched through {@code match}.
+ */
+final class PrimitiveMatchingDerivator implements Derivator {
+
+  private enum PrimitiveResult {
+    Int(TypeKind.INT, IntSupplier.class, ToIntFunction.class, ToIntBiFunction.class),
+    Long(TypeKind.LONG, LongSupplier.class, ToLongFunction.class, ToLongBiFunction.class),
+    Double(TypeKind.DOUBLE, DoubleSupplier.class, ToDoubleFunction.class, ToDoubleBiFunction.class),
+    Boolean(TypeKind.BOOLEAN, BooleanSupplier.class, Predicate.class, BiPredicate.class);
+
+    final TypeKind kind;
+    final Class<?> supplier;
+    final Class<?> function;
+    final Class<?> biFunction;
+
+    PrimitiveResult(TypeKind kind, Class<?> supplier, Class<?> function, Class<?> biFunction) {
+      this.kind = kind;
+      this.supplier = supplier;
+      this.function = function;
+      this.biFunction = biFunction;
+    }
+  }
+
+  private final DeriveUtils                deriveUtils;
+  private final StrictConstructorDerivator strictConstructorDerivator;
+
+  PrimitiveMatchingDerivator(DeriveUtils deriveUtils) {
+    this.deriveUtils = deriveUtils;
+    strictConstructorDerivator = new StrictConstructorDerivator(deriveUtils);
+  }
+
+  @Override
+  public DeriveResult<DerivedCodeSpec> derive(AlgebraicDataType adt) {
+
+    return DeriveResult.result(StrictConstructorDerivator.hasOrdinals(adt)
+        ? DataConstructions.caseOf(adt.dataConstruction())
+            .multipleConstructors_(Arrays.stream(PrimitiveResult.values())
+                .map(primitiveResult -> primitiveMatch(adt, primitiveResult))
+                .reduce(DerivedCodeSpec.none(), DerivedCodeSpec::append))
+            .otherwise_(DerivedCodeSpec.none())
+        : DerivedCodeSpec.none());
+  }
+
+  private DerivedCodeSpec primitiveMatch(AlgebraicDataType adt, PrimitiveResult primitiveResult) {
+
+    List<DataConstructor> constructors = adt.dataConstruction().constructors();
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    PrimitiveType resultType = deriveUtils.types().getPrimitiveType(primitiveResult.kind);
+
+    NameAllocator nameAllocator = new NameAllocator();
+    constructors.forEach(dc -> dc.arguments().forEach(da -> nameAllocator.newName(da.fieldName())));
+    String arg = nameAllocator.newName(Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName()));
+
+    List<TypeSpec> mapperInterfaces = new ArrayList<>();
+    MethodSpec.Builder match = MethodSpec.methodBuilder("match" + primitiveResult.name())
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(adt.typeConstructor().typeVariables().stream().map(TypeVariableName::get).collect(toList()))
+        .returns(TypeName.get(resultType))
+        .addParameter(adtType, arg);
+
+    List<String> mapperNames = new ArrayList<>();
+    List<String> mapperMethods = new ArrayList<>();
+    for (DataConstructor dc : constructors) {
+      String mapperName = nameAllocator.newName(dc.name());
+      mapperNames.add(mapperName);
+      List<TypeMirror> argTypes = dc.arguments().stream().map(DataArgument::type).collect(toList());
+      boolean hasPrimitiveArg = argTypes.stream().anyMatch(t -> t.getKind().isPrimitive());
+
+      TypeName mapperType;
+      if (argTypes.isEmpty()) {
+        mapperType = ClassName.get(primitiveResult.supplier);
+        mapperMethods.add(samMethodName(primitiveResult.supplier));
+      } else if ((argTypes.size() == 1) && !hasPrimitiveArg) {
+        mapperType = ParameterizedTypeName.get(ClassName.get(primitiveResult.function), TypeName.get(argTypes.get(0)));
+        mapperMethods.add(samMethodName(primitiveResult.function));
+      } else if ((argTypes.size() == 2) && !hasPrimitiveArg) {
+        mapperType = ParameterizedTypeName.get(ClassName.get(primitiveResult.biFunction),
+            TypeName.get(argTypes.get(0)), TypeName.get(argTypes.get(1)));
+        mapperMethods.add(samMethodName(primitiveResult.biFunction));
+      } else {
+        // no functional interface of the JDK fits: use a dedicated one.
+        TypeSpec mapperInterface = mapperInterface(adt, dc, primitiveResult, resultType);
+        mapperInterfaces.add(mapperInterface);
+        List<TypeVariableName> mapperVariables = mapperInterface.typeVariables;
+        ClassName mapperClassName = adt.deriveConfig().targetClass().className().nestedClass(mapperInterface.name);
+        mapperType = mapperVariables.isEmpty()
+            ? mapperClassName
+            : ParameterizedTypeName.get(mapperClassName, mapperVariables.toArray(new TypeName[0]));
+        mapperMethods.add(dc.name());
+      }
+      match.addParameter(ParameterSpec.builder(mapperType, mapperName).build());
+    }
+
+    Function<DataConstructor, String> mapperCall = dc -> mapperNames.get(constructors.indexOf(dc)) + '.'
+        + mapperMethods.get(constructors.indexOf(dc));
+    // lazy values are matched through the match method:
+    CodeBlock visitorMatch = CodeBlock.builder()
+        .addStatement("return $L.$L($L)", arg, adt.matchMethod().element().getSimpleName(),
+            strictConstructorDerivator.constructorsVisitor(adt, arg, asBoxedType.visit(resultType, deriveUtils.types()),
+                (dc, arguments) -> CodeBlock.of("$L($L)", mapperCall.apply(dc), arguments)))
+        .build();
+    match.addCode(PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, arg,
+        (dc, arguments) -> CodeBlock.of("$L($L)", mapperCall.apply(dc), arguments), visitorMatch));
+
+    return DerivedCodeSpec.codeSpec(mapperInterfaces, match.build());
+  }
+
+  private TypeSpec mapperInterface(AlgebraicDataType adt, DataConstructor dc, PrimitiveResult primitiveResult,
+      PrimitiveType resultType) {
+
+    return TypeSpec.interfaceBuilder(Utils.capitalize(dc.name()) + "To" + primitiveResult.name() + "Mapper")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(adt.typeConstructor()
+            .typeVariables()
+            .stream()
+            .filter(tv -> dc.arguments()
+                .stream()
+                .flatMap(da -> deriveUtils.typeVariablesIn(da.type()).stream())
+                .anyMatch(argTv -> deriveUtils.types().isSameType(argTv, tv)))
+            .map(TypeVariableName::get)
+            .collect(toList()))
+        .addMethod(MethodSpec.methodBuilder(dc.name())
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .addParameters(dc.arguments()
+                .stream()
+                .map(da -> ParameterSpec.builder(TypeName.get(da.type()), da.fieldName()).build())
+                .collect(toList()))
+            .returns(TypeName.get(resultType))
+            .build())
+        .build();
+  }
+
+  private String samMethodName(Class<?> functionalInterface) {
+    TypeElement typeElement = deriveUtils.elements().getTypeElement(functionalInterface.getName());
+    return deriveUtils.allAbstractMethods(typeElement).get(0).getSimpleName().toString();
+  }
+
+}
@@ -19,18 +19,29 @@
 package org.derive4j.processor;
 
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.NameAllocator;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -61,8 +72,11 @@ import org.derive4j.processor.api.model.TypeRestriction;
 
 import static org.derive4j.processor.Utils.joinStrings;
 import static org.derive4j.processor.Utils.optionalAsStream;
+import static org.derive4j.processor.api.DeriveMessages.message;
+import static org.derive4j.processor.api.DeriveResult.error;
 import static org.derive4j.processor.api.DeriveResult.result;
 import static org.derive4j.processor.api.DerivedCodeSpec.none;
+import static org.derive4j.processor.api.MessageLocalization.onElement;
 import static org.derive4j.processor.api.model.DataConstructions.caseOf;
 import static org.derive4j.processor.api.model.DeriveVisibilities.caseOf;
 
@@ -73,6 +87,9 @@ final class StrictConstructorDerivator implements Derivator {
     mapperDerivator = new MapperDerivator(deriveUtils);
   }
 
+  // marks the output of appendTo where the depth or length limit is reached:
+  private static final String TRUNCATED = "...";
+
   private static final List<Integer> PRIMES = Arrays.asList(23, 29, 31, 37, 41, 43, 47, 53, 59, 61, 67, 71, 73, 79, 83,
       89, 97, 101, 103, 107, 109, 113, 127, 131, 137, 139, 149, 151, 157, 163, 167, 173, 179, 181, 191, 193, 197, 199,
       211, 223, 227, 229, 233, 239, 241, 251, 257, 263, 269, 271, 277, 281, 283, 293, 307, 311, 313, 317, 331, 337, 347,
@@ -82,6 +99,14 @@ final class StrictConstructorDerivator implements Derivator {
       797, 809, 811, 821, 823, 827, 829, 839, 853, 857, 859, 863, 877, 881, 883, 887, 907, 911, 919, 929, 937, 941, 947,
       953, 967, 971, 977, 983, 991, 997);
 
+  private static final String INTERN_TABLE = "InternTable";
+
+  private static final int INTERN_TABLE_STRIPES = 64;
+
+  private static final String CONSTRUCTION_EVENT = "ConstructionEvent";
+
+  private static final String CONSTRUCTOR_CLASS = "ConstructorClass";
+
   private final DeriveUtils deriveUtils;
 
   private final MapperDerivator mapperDerivator;
@@ -94,12 +119,27 @@ final class StrictConstructorDerivator implements Derivator {
     if (adt.typeConstructor().declaredType().asElement().getKind() == ElementKind.ENUM) {
       codeSpec = none();
     } else {
+      if (interned(adt) && !(findAbstractEquals(adt.typeConstructor().typeElement()).isPresent()
+          && findAbstractHashCode(adt.typeConstructor().typeElement()).isPresent())) {
+        return error(message("ArgOption.interned requires equals and hashCode to be declared abstract (and derived)",
+            onElement(adt.typeConstructor().typeElement())));
+      }
       codeSpec = caseOf(adt.dataConstruction())
-          .multipleConstructors(
-              constructors -> constructors.constructors().stream().map(dc -> constructorSpec(adt, dc)).reduce(none(),
-                  DerivedCodeSpec::append))
+          .multipleConstructors(constructors -> constructors.constructors()
+              .stream()
+              .map(dc -> constructorSpec(adt, dc))
+              .reduce(none(), DerivedCodeSpec::append)
+              .append(ordinalSpec(adt))
+              .append(stackSafeSpec(adt)))
           .oneConstructor(constructor -> constructorSpec(adt, constructor))
           .noConstructor(DerivedCodeSpec::none);
+      if (interned(adt)
+          && adt.dataConstruction().constructors().stream().anyMatch(dc -> !dc.arguments().isEmpty())) {
+        codeSpec = codeSpec.append(DerivedCodeSpec.codeSpec(internTableSpec(), Collections.emptyList()));
+      }
+      if (jfrEvents(adt) && !adt.dataConstruction().constructors().isEmpty()) {
+        codeSpec = codeSpec.append(DerivedCodeSpec.codeSpec(constructionEventSpec(adt), Collections.emptyList()));
+      }
     }
 
     return needLambdaVisitorGeneration(adt) ? mapperDerivator.derive(adt).map(codeSpec::append) : result(codeSpec);
@@ -132,21 +172,107 @@ final class StrictConstructorDerivator implements Derivator {
 
   private Optional<MethodSpec> deriveHashCode(AlgebraicDataType adt, DataConstructor constructor) {
 
-    int nbConstructors = adt.dataConstruction().constructors().size();
-    int constructorIndex = IntStream.range(0, nbConstructors)
-        .filter(i -> adt.dataConstruction().constructors().get(i).name().equals(constructor.name()))
-        .findFirst()
-        .getAsInt();
+    int constructorIndex = ordinal(adt, constructor);
 
-    return findAbstractHashCode(adt.typeConstructor().typeElement()).map(abstractHashCode -> deriveUtils
-        .overrideMethodBuilder(abstractHashCode, constructor.returnedType())
-        .addStatement("return $L$L$L",
-            IntStream.range(0, constructor.arguments().size() - 1).mapToObj(__ -> "(").collect(Collectors.joining()),
-            PRIMES.get(constructorIndex),
-            joinStrings(constructor.arguments().stream().map(da -> " + " + hascode(da)),
-                ") * " + PRIMES.get(constructorIndex)))
-        .build());
+    CodeBlock hashCodeExpr = stackSafe(adt, constructor)
+        ? CodeBlock.of("$T._hashCode(this)", adt.deriveConfig().targetClass().className())
+        : CodeBlock.of("$L", IntStream.range(0, constructor.arguments().size() - 1)
+            .mapToObj(__ -> "(")
+            .collect(Collectors.joining()) + PRIMES.get(constructorIndex)
+            + joinStrings(constructor.arguments().stream().map(da -> " + " + hascode(da, "this." + da.fieldName())),
+                ") * " + PRIMES.get(constructorIndex)));
+
+    return findAbstractHashCode(adt.typeConstructor().typeElement()).map(abstractHashCode -> {
+      MethodSpec.Builder methodBuilder = deriveUtils.overrideMethodBuilder(abstractHashCode,
+          constructor.returnedType());
+      if (cachedHashCode(adt, constructor)) {
+        // racy single-check, as java.lang.String: the hash code is recomputed if it happens to be 0.
+        methodBuilder.addStatement("int hashCode = this._hashCode")
+            .beginControlFlow("if (hashCode == 0)")
+            .addStatement("this._hashCode = hashCode = $L", hashCodeExpr)
+            .endControlFlow()
+            .addStatement("return hashCode");
+      } else {
+        methodBuilder.addStatement("return $L", hashCodeExpr);
+      }
+      return methodBuilder.build();
+    });
+
+  }
+
+  // interning hashes every new value, so interned values always cache their hash code.
+  private boolean cachedHashCode(AlgebraicDataType adt, DataConstructor constructor) {
+    return (adt.deriveConfig().argOptions().contains(ArgOption.cachedHashCode) || interned(adt))
+        && !constructor.arguments().isEmpty() && findAbstractHashCode(adt.typeConstructor().typeElement()).isPresent();
+  }
+
+  private List<TypeVariableName> constructorTypeVariables(AlgebraicDataType adt, DataConstructor constructor) {
+    return adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .filter(tv -> constructor.typeRestrictions().stream().map(TypeRestriction::restrictedTypeVariable).noneMatch(
+            rtv -> deriveUtils.types().isSameType(rtv, tv)))
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+  }
+
+  private static TypeName wildcardType(ClassName rawType, int typeArity) {
+    return (typeArity == 0)
+        ? rawType
+        : ParameterizedTypeName.get(rawType, IntStream.range(0, typeArity)
+            .mapToObj(i -> WildcardTypeName.subtypeOf(Object.class))
+            .toArray(TypeName[]::new));
+  }
 
+  private static boolean interned(AlgebraicDataType adt) {
+    return adt.deriveConfig().argOptions().contains(ArgOption.interned);
+  }
+
+  /**
+   * A weak intern table, striped over synchronized {@link WeakHashMap}s: values are the keys and are only weakly
+   * referenced (also from the map values), so that entries are cleared once the interned value is unreachable.
+   * Being a nested class, the table is only initialized on first use.
+   */
+  private static TypeSpec internTableSpec() {
+
+    TypeName stripeType = ParameterizedTypeName.get(ClassName.get(Map.class), ClassName.get(Object.class),
+        ParameterizedTypeName.get(WeakReference.class, Object.class));
+    TypeVariableName t = TypeVariableName.get("T");
+
+    return TypeSpec.classBuilder(INTERN_TABLE)
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .addField(FieldSpec.builder(ArrayTypeName.of(stripeType), "stripes", Modifier.PRIVATE, Modifier.STATIC,
+            Modifier.FINAL)
+            .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                .addMember("value", "{$S, $S}", "rawtypes", "unchecked")
+                .build())
+            .initializer("new $T[$L]", Map.class, INTERN_TABLE_STRIPES)
+            .build())
+        .addStaticBlock(CodeBlock.builder()
+            .beginControlFlow("for (int i = 0; i < stripes.length; i++)")
+            .addStatement("stripes[i] = new $T<>()", WeakHashMap.class)
+            .endControlFlow()
+            .build())
+        .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+        .addMethod(MethodSpec.methodBuilder("intern")
+            .addModifiers(Modifier.STATIC)
+            .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build())
+            .addTypeVariable(t)
+            .addParameter(t, "value")
+            .returns(t)
+            .addStatement("int h = value.hashCode()")
+            .addStatement("$T stripe = stripes[(h ^ (h >>> 16)) & (stripes.length - 1)]", stripeType)
+            .beginControlFlow("synchronized (stripe)")
+            .addStatement("$T<$T> ref = stripe.get(value)", WeakReference.class, Object.class)
+            .addStatement("$T canonical = (ref == null) ? null : ref.get()", Object.class)
+            .beginControlFlow("if (canonical == null)")
+            .addStatement("stripe.put(value, new $T<$T>(value))", WeakReference.class, Object.class)
+            .addStatement("return value")
+            .endControlFlow()
+            .addStatement("return ($T) canonical", t)
+            .endControlFlow()
+            .build())
+        .build();
   }
 
   private Optional<MethodSpec> deriveToString(AlgebraicDataType adt, DataConstructor constructor) {
@@ -156,9 +282,11 @@ final class StrictConstructorDerivator implements Derivator {
           constructor.returnedType());
       if (constructor.arguments().isEmpty()) {
         methodBuilder.addStatement("return \"$L()\"", constructor.name());
+      } else if (stackSafe(adt, constructor)) {
+        methodBuilder.addStatement("return $T._toString(this)", adt.deriveConfig().targetClass().className());
       } else {
         methodBuilder.addStatement("return $S + $L + $S", constructor.name() + '(',
-            joinStrings(constructor.arguments().stream().map(StrictConstructorDerivator::toString), " + \", \" + "),
+            joinStrings(constructor.arguments().stream().map(da -> toString(da, "this." + da.fieldName())), " + \", \" + "),
             ")");
 
       }
@@ -179,7 +307,7 @@ final class StrictConstructorDerivator implements Derivator {
                   c.name().equals(constructor.name())
                       ? constructor.arguments()
                           .stream()
-                          .map(StrictConstructorDerivator::equalityTest)
+                          .map(da -> equalityTest(da, "this." + da.fieldName(), da.fieldName()))
                           .reduce((s1, s2) -> s1 + " && " + s2)
                           .orElse("true")
                       : "false")
@@ -187,17 +315,69 @@ final class StrictConstructorDerivator implements Derivator {
           .reduce((cb1, cb2) -> CodeBlock.builder().add(cb1).add(",\n").add(cb2).build())
           .orElse(CodeBlock.builder().build());
 
+      // with cached hash codes, comparing them is a cheap way to reject most unequal values:
+      String hashCodeTest = cachedHashCode(adt, constructor) ? "(this.hashCode() == $1L.hashCode()) && " : "";
+
       MethodSpec.Builder equalBuilder = deriveUtils.overrideMethodBuilder(abstractEquals, constructor.returnedType());
       if (!adt.typeConstructor().typeVariables().isEmpty()) {
         equalBuilder.addAnnotation(
             AnnotationSpec.builder(SuppressWarnings.class).addMember("value", "$S", "unchecked").build());
       }
 
+      String className = constructorClassName(deriveUtils, adt, constructor);
+      TypeName constructorWildcardType = wildcardType(ClassName.bestGuess(className),
+          constructorTypeVariables(adt, constructor).size());
+
+      if (!constructor.arguments().isEmpty()) {
+        equalBuilder.beginControlFlow("if (this == $L)", objectParam.getSimpleName())
+            .addStatement("return true")
+            .endControlFlow();
+      }
+      if (interned(adt) && !constructor.arguments().isEmpty()) {
+        // two distinct canonical instances are never equal. (the value being interned is not canonical yet)
+        equalBuilder.beginControlFlow("if (this._interned && ($1L instanceof $2L) && (($3T) $1L)._interned)",
+                objectParam.getSimpleName(), className, constructorWildcardType)
+            .addStatement("return false")
+            .endControlFlow();
+      }
+
+      if (stackSafe(adt, constructor)) {
+        return equalBuilder.addStatement("return $T._equals(this, $L)", adt.deriveConfig().targetClass().className(),
+            objectParam.getSimpleName()).build();
+      }
+
+      // Allocation free comparison of instances built by the generated constructors:
+      String that = objectParam.getSimpleName().contentEquals("that") ? "_that" : "that";
+      equalBuilder.beginControlFlow("if ($L instanceof $L)", objectParam.getSimpleName(), className);
+      if (constructor.arguments().isEmpty()) {
+        equalBuilder.addStatement("return true");
+      } else {
+        equalBuilder.addStatement("$1T $2L = ($1T) $3L", constructorWildcardType, that, objectParam.getSimpleName())
+            .addStatement("return $L$L", cachedHashCode(adt, constructor)
+                ? "(this.hashCode() == " + that + ".hashCode()) && "
+                : "", constructor.arguments()
+                    .stream()
+                    .map(da -> equalityTest(da, "this." + da.fieldName(), that + '.' + da.fieldName()))
+                    .collect(Collectors.joining(" && ")));
+      }
+      equalBuilder.endControlFlow();
+      if (hasOrdinals(adt)) {
+        TypeName adtWildcardType = wildcardType(
+            (ClassName) TypeName.get(deriveUtils.types().erasure(adt.typeConstructor().declaredType())),
+            adt.typeConstructor().typeVariables().size());
+        equalBuilder.beginControlFlow("if (($1L instanceof $2T) && ($3T._ordinal(($4T) $1L) >= 0))",
+            objectParam.getSimpleName(),
+            TypeName.get(deriveUtils.types().erasure(adt.typeConstructor().declaredType())),
+            adt.deriveConfig().targetClass().className(), adtWildcardType)
+            .addStatement("return false")
+            .endControlFlow();
+      }
+
       return caseOf(adt.dataConstruction()).multipleConstructors(
           MultipleConstructorsSupport.cases().visitorDispatch((visitorParam, visitorType, constructors) ->
 
           equalBuilder
-              .addStatement("return ($1L instanceof $2T) && (($3T) $1L).$4L($5T.$6L($7L))",
+              .addStatement("return ($1L instanceof $2T) && " + hashCodeTest + "(($3T) $1L).$4L($5T.$6L($7L))",
                   objectParam.getSimpleName().toString(),
                   TypeName.get(deriveUtils.types().erasure(adt.typeConstructor().declaredType())),
                   TypeName.get(deriveUtils.resolve(adt.typeConstructor().declaredType(),
@@ -211,7 +391,8 @@ final class StrictConstructorDerivator implements Derivator {
               .build()
 
           ).functionsDispatch(
-              constructors -> equalBuilder.addStatement("return ($1L instanceof $2T) && (($3T) $1L).$4L($5L)",
+              constructors -> equalBuilder.addStatement(
+                  "return ($1L instanceof $2T) && " + hashCodeTest + "(($3T) $1L).$4L($5L)",
                   objectParam.getSimpleName().toString(),
                   TypeName.get(deriveUtils.types().erasure(adt.typeConstructor().declaredType())),
                   TypeName.get(deriveUtils.resolve(adt.typeConstructor().declaredType(),
@@ -221,7 +402,8 @@ final class StrictConstructorDerivator implements Derivator {
                           .map(TypeRestriction::refinementType)
                           .findFirst())),
                   adt.matchMethod().element().getSimpleName(), lambdas).build()))
-          .oneConstructor(c -> equalBuilder.addStatement("return ($1L instanceof $2T) && (($3T) $1L).$4L($5L)",
+          .oneConstructor(c -> equalBuilder.addStatement(
+              "return ($1L instanceof $2T) && " + hashCodeTest + "(($3T) $1L).$4L($5L)",
               objectParam.getSimpleName().toString(),
               TypeName.get(deriveUtils.types().erasure(adt.typeConstructor().declaredType())),
               TypeName.get(deriveUtils.resolve(adt.typeConstructor().declaredType(),
@@ -241,13 +423,7 @@ final class StrictConstructorDerivator implements Derivator {
 
     TypeName constructedType = TypeName.get(constructor.returnedType());
 
-    List<TypeVariableName> typeVariableNames = adt.typeConstructor()
-        .typeVariables()
-        .stream()
-        .filter(tv -> constructor.typeRestrictions().stream().map(TypeRestriction::restrictedTypeVariable).noneMatch(
-            rtv -> deriveUtils.types().isSameType(rtv, tv)))
-        .map(TypeVariableName::get)
-        .collect(Collectors.toList());
+    List<TypeVariableName> typeVariableNames = constructorTypeVariables(adt, constructor);
 
     MethodSpec.Builder constructorBuilder = MethodSpec.constructorBuilder()
         .addParameters(constructor.arguments()
@@ -259,14 +435,7 @@ final class StrictConstructorDerivator implements Derivator {
       constructorBuilder.addStatement("this.$N = $N", argument.fieldName(), argument.fieldName());
     }
 
-    NameAllocator nameAllocator = new NameAllocator();
-    nameAllocator.newName(adt.typeConstructor().declaredType().asElement().getSimpleName().toString());
-    adt.typeConstructor().typeVariables().forEach(
-        tv -> nameAllocator.newName(tv.asElement().getSimpleName().toString()));
-    constructor.arguments().stream().filter(da -> da.type().getKind() == TypeKind.DECLARED).forEach(da -> nameAllocator
-        .newName(deriveUtils.types().asElement(da.type()).getSimpleName().toString(), da.fieldName()));
-
-    String className = nameAllocator.newName(Utils.capitalize(constructor.name()));
+    String className = constructorClassName(deriveUtils, adt, constructor);
     TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder(className)
         .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
         .addTypeVariables(typeVariableNames)
@@ -288,6 +457,22 @@ final class StrictConstructorDerivator implements Derivator {
       typeSpecBuilder.superclass(constructedType);
     }
 
+    if (cachedHashCode(adt, constructor)) {
+      typeSpecBuilder.addField(FieldSpec.builder(TypeName.INT, "_hashCode", Modifier.PRIVATE).build());
+    }
+    if (interned(adt) && !constructor.arguments().isEmpty()) {
+      typeSpecBuilder.addField(FieldSpec.builder(TypeName.BOOLEAN, "_interned", Modifier.PRIVATE).build());
+    }
+    if (hasOrdinals(adt)) {
+      typeSpecBuilder.addSuperinterface(adt.deriveConfig().targetClass().className().nestedClass(CONSTRUCTOR_CLASS))
+          .addMethod(MethodSpec.methodBuilder("_ordinal")
+              .addAnnotation(Override.class)
+              .addModifiers(Modifier.PUBLIC)
+              .returns(TypeName.INT)
+              .addStatement("return $L", ordinal(adt, constructor))
+              .build());
+    }
+
     typeSpecBuilder.addMethods(optionalAsStream(deriveEquals(adt, constructor)).collect(Collectors.toList()));
     typeSpecBuilder.addMethods(optionalAsStream(deriveHashCode(adt, constructor)).collect(Collectors.toList()));
     typeSpecBuilder.addMethods(optionalAsStream(deriveToString(adt, constructor)).collect(Collectors.toList()));
@@ -338,6 +523,10 @@ final class StrictConstructorDerivator implements Derivator {
 
     }
 
+    if (jfrEvents(adt)) {
+      factory.addStatement("$1L _event = new $1L()", CONSTRUCTION_EVENT).addStatement("_event.begin()");
+    }
+
     DerivedCodeSpec result;
 
     if (constructor.arguments().isEmpty()) {
@@ -351,24 +540,581 @@ final class StrictConstructorDerivator implements Derivator {
             .build());
       }
 
+      factory.addStatement("$1T _$2L = $2L", constructedType, constructor.name())
+          .beginControlFlow("if (_$L == null)", constructor.name())
+          .addStatement("$1L = _$1L = new $2L()", constructor.name(), className)
+          .endControlFlow();
       result = DerivedCodeSpec.codeSpec(typeSpecBuilder.build(), singleton.build(),
-          factory.addStatement("$1T _$2L = $2L", constructedType, constructor.name())
-              .beginControlFlow("if (_$L == null)", constructor.name())
-              .addStatement("$1L = _$1L = new $2L()", constructor.name(), className)
-              .endControlFlow()
-              .addStatement("return _$L", constructor.name())
-              .build());
+          returnValue(adt, constructor, factory, CodeBlock.of("_$L", constructor.name())).build());
+    } else if (interned(adt)) {
+      TypeName constructorType = typeVariableNames.isEmpty()
+          ? ClassName.bestGuess(className)
+          : ParameterizedTypeName.get(ClassName.bestGuess(className), typeVariableNames.toArray(new TypeName[0]));
+      factory
+          .addStatement("$1T _$2L = $3L.intern(new $4L$5L($6L))", constructorType, constructor.name(), INTERN_TABLE,
+              className, typeVariableNames.isEmpty() ? "" : "<>", Utils.asArgumentsString(constructor.arguments()))
+          .beginControlFlow("if (!_$L._interned)", constructor.name())
+          .addStatement("_$L._interned = true", constructor.name())
+          .endControlFlow();
+      result = DerivedCodeSpec.codeSpec(typeSpecBuilder.build(),
+          returnValue(adt, constructor, factory, CodeBlock.of("_$L", constructor.name())).build());
     } else {
+      CodeBlock newValue = CodeBlock.of("new $L$L($L)", className, typeVariableNames.isEmpty() ? "" : "<>",
+          Utils.asArgumentsString(constructor.arguments()));
+      if (jfrEvents(adt)) {
+        factory.addStatement("$T _$L = $L", constructedType, constructor.name(), newValue);
+        newValue = CodeBlock.of("_$L", constructor.name());
+      }
       result = DerivedCodeSpec.codeSpec(typeSpecBuilder.build(),
-          factory
-              .addStatement("return new $L$L($L)", className, typeVariableNames.isEmpty() ? "" : "<>",
-                  Utils.asArgumentsString(constructor.arguments()))
-              .build());
+          returnValue(adt, constructor, factory, newValue).build());
     }
 
     return gadtFactory.map(f -> result.append(DerivedCodeSpec.methodSpec(f.build()))).orElse(result);
   }
 
+  private static MethodSpec.Builder returnValue(AlgebraicDataType adt, DataConstructor constructor,
+      MethodSpec.Builder factory, CodeBlock value) {
+    if (jfrEvents(adt)) {
+      factory.beginControlFlow("if (_event.shouldCommit())")
+          .addStatement("_event.constructor = $S", constructor.name())
+          .addStatement("_event.commit()")
+          .endControlFlow();
+    }
+    return factory.addStatement("return $L", value);
+  }
+
+  static boolean jfrEvents(AlgebraicDataType adt) {
+    return adt.deriveConfig().argOptions().contains(ArgOption.jfrEvents);
+  }
+
+  /**
+   * A JFR event class, named and categorized after the data type. Only referenced by name, so that the processor
+   * itself does not require the jdk.jfr module.
+   */
+  static TypeSpec.Builder jfrEventSpec(AlgebraicDataType adt, String className, String name) {
+    String adtName = adt.typeConstructor().typeElement().getQualifiedName().toString();
+    String adtSimpleName = adt.typeConstructor().typeElement().getSimpleName().toString();
+    return TypeSpec.classBuilder(className)
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+        .superclass(ClassName.get("jdk.jfr", "Event"))
+        .addAnnotation(AnnotationSpec.builder(ClassName.get("jdk.jfr", "Name"))
+            .addMember("value", "$S", adtName + '.' + name)
+            .build())
+        .addAnnotation(AnnotationSpec.builder(ClassName.get("jdk.jfr", "Label"))
+            .addMember("value", "$S", adtSimpleName + ' ' + name)
+            .build())
+        .addAnnotation(AnnotationSpec.builder(ClassName.get("jdk.jfr", "Category"))
+            .addMember("value", "{$S, $S}", "Derive4J", adtSimpleName)
+            .build());
+  }
+
+  private static TypeSpec constructionEventSpec(AlgebraicDataType adt) {
+    return jfrEventSpec(adt, CONSTRUCTION_EVENT, "Construction")
+        .addField(FieldSpec.builder(String.class, "constructor")
+            .addAnnotation(AnnotationSpec.builder(ClassName.get("jdk.jfr", "Label"))
+                .addMember("value", "$S", "Constructor")
+                .build())
+            .build())
+        .build();
+  }
+
+  private DerivedCodeSpec ordinalSpec(AlgebraicDataType adt) {
+
+    if (!hasOrdinals(adt)) {
+      return none();
+    }
+
+    List<TypeVariableName> typeVariableNames = adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+    String arg = Utils.uncapitalize(adt.typeConstructor().typeElement().getSimpleName());
+    ParameterSpec adtParam = ParameterSpec.builder(TypeName.get(adt.typeConstructor().declaredType()), arg).build();
+
+    // every constructor class returns its own ordinal, so that it is read with a single type test:
+    ClassName constructorClass = adt.deriveConfig().targetClass().className().nestedClass(CONSTRUCTOR_CLASS);
+    TypeSpec constructorClassSpec = TypeSpec.interfaceBuilder(CONSTRUCTOR_CLASS)
+        .addModifiers(Modifier.PRIVATE)
+        .addMethod(MethodSpec.methodBuilder("_ordinal")
+            .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+            .returns(TypeName.INT)
+            .build())
+        .build();
+    MethodSpec constructorOrdinal = MethodSpec.methodBuilder("_ordinal")
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+        .addTypeVariables(typeVariableNames)
+        .addParameter(adtParam)
+        .returns(TypeName.INT)
+        .addStatement("return ($1N instanceof $2T) ? (($2T) $1N)._ordinal() : -1", adtParam, constructorClass)
+        .build();
+
+    // the public ordinal API is opt-in: it could clash with user-defined constructors named 'ordinal' or 'isXxx'.
+    if (!adt.deriveConfig().argOptions().contains(ArgOption.ordinals)) {
+      return DerivedCodeSpec.codeSpec(constructorClassSpec, constructorOrdinal);
+    }
+
+    MethodSpec ordinal = MethodSpec.methodBuilder("ordinal")
+        .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        .addTypeVariables(typeVariableNames)
+        .addParameter(adtParam)
+        .returns(TypeName.INT)
+        .addStatement("int ordinal = _ordinal($N)", adtParam)
+        .addStatement("return (ordinal >= 0) ? ordinal : $N.$L($L)", adtParam,
+            adt.matchMethod().element().getSimpleName(), ordinalVisitor(adt, arg))
+        .build();
+
+    return DerivedCodeSpec.codeSpec(constructorClassSpec, Stream
+        .concat(Stream.of(constructorOrdinal, ordinal), adt.dataConstruction()
+            .constructors()
+            .stream()
+            .map(dc -> MethodSpec.methodBuilder("is" + Utils.capitalize(dc.name()))
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addTypeVariables(typeVariableNames)
+                .addParameter(adtParam)
+                .returns(TypeName.BOOLEAN)
+                .addStatement("return ordinal($N) == $L", adtParam, ordinal(adt, dc))
+                .build()))
+        .collect(Collectors.toList()));
+  }
+
+  // Only used for instances that are not built by the generated constructors (lazy or user-defined implementations).
+  private CodeBlock ordinalVisitor(AlgebraicDataType adt, String arg) {
+
+    return constructorsVisitor(adt, arg, deriveUtils.elements().getTypeElement(Integer.class.getName()).asType(),
+        (dc, arguments) -> CodeBlock.of("$L", ordinal(adt, dc)));
+  }
+
+  /**
+   * A visitor (or the list of functions) returning the given expression of each constructor arguments, to be used as
+   * argument of the match method (whose receiver is {@code arg}).
+   */
+  CodeBlock constructorsVisitor(AlgebraicDataType adt, String arg, TypeMirror resultType,
+      BiFunction<DataConstructor, String, CodeBlock> result) {
+
+    return caseOf(adt.dataConstruction()).multipleConstructors(MultipleConstructorsSupport.cases()
+        .visitorDispatch((visitorParam, visitorType, constructors) -> {
+          DeclaredType resolvedVisitorType = deriveUtils.resolve(visitorType,
+              tv -> deriveUtils.types().isSameType(tv, adt.matchMethod().returnTypeVariable())
+                  ? Optional.of(resultType)
+                  : Optional.empty());
+          TypeSpec.Builder visitor = TypeSpec.anonymousClassBuilder("");
+          if (resolvedVisitorType.asElement().getKind() == ElementKind.INTERFACE) {
+            visitor.addSuperinterface(TypeName.get(resolvedVisitorType));
+          } else {
+            visitor.superclass(TypeName.get(resolvedVisitorType));
+          }
+          for (DataConstructor dc : constructors) {
+            visitor.addMethod(deriveUtils.overrideMethodBuilder(dc.deconstructor().method(), resolvedVisitorType)
+                .addStatement("return $L", result.apply(dc, dc.deconstructor()
+                    .method()
+                    .getParameters()
+                    .stream()
+                    .map(p -> p.getSimpleName().toString())
+                    .collect(Collectors.joining(", "))))
+                .build());
+          }
+          return CodeBlock.of("$L", visitor.build());
+        })
+        .functionsDispatch(constructors -> constructors.stream().map(dc -> {
+          NameAllocator nameAllocator = new NameAllocator();
+          nameAllocator.newName(arg);
+          String arguments = Utils.asLambdaParametersString(dc.arguments(), dc.typeRestrictions(), nameAllocator);
+          return CodeBlock.of("($L) -> $L", arguments, result.apply(dc, arguments));
+        }).collect(CodeBlock.joining(", "))))
+        .oneConstructor(dc -> {
+          NameAllocator nameAllocator = new NameAllocator();
+          nameAllocator.newName(arg);
+          String arguments = Utils.asLambdaParametersString(dc.arguments(), dc.typeRestrictions(), nameAllocator);
+          return CodeBlock.of("($L) -> $L", arguments, result.apply(dc, arguments));
+        })
+        .noConstructor(() -> {
+          throw new IllegalArgumentException();
+        });
+  }
+
+  /**
+   * For self-recursive data types, equals, hashCode and toString are implemented by static methods that iterate over
+   * the values with an explicit work stack, so that they do not overflow the call stack on deep values.
+   */
+  private DerivedCodeSpec stackSafeSpec(AlgebraicDataType adt) {
+
+    if (!stackSafe(adt)) {
+      return none();
+    }
+
+    TypeElement typeElement = adt.typeConstructor().typeElement();
+    List<TypeVariableName> typeVariableNames = adt.typeConstructor()
+        .typeVariables()
+        .stream()
+        .map(TypeVariableName::get)
+        .collect(Collectors.toList());
+    TypeName adtType = TypeName.get(adt.typeConstructor().declaredType());
+    ClassName rawAdtType = ClassName.get(typeElement);
+    TypeName adtWildcardType = wildcardType(rawAdtType, typeVariableNames.size());
+    String arg = Utils.uncapitalize(typeElement.getSimpleName());
+    String value = "value";
+
+    List<MethodSpec> methods = new ArrayList<>();
+
+    // a work stack is only needed if a constructor has several recursive fields, otherwise the single recursive field
+    // is simply followed by the loop:
+    boolean withStack = adt.dataConstruction()
+        .constructors()
+        .stream()
+        .anyMatch(dc -> dc.arguments().stream().filter(da -> isRecursive(adt, da)).count() > 1);
+
+    methods.add(MethodSpec.methodBuilder("_strict")
+        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+        .addTypeVariables(typeVariableNames)
+        .addParameter(adtType, arg)
+        .returns(adtType)
+        .addStatement("return (_ordinal($1L) >= 0) ? $1L : $1L.$2L($3L)", arg, adt.matchMethod().element().getSimpleName(),
+            constructorsVisitor(adt, arg, adt.typeConstructor().declaredType(),
+                (dc, arguments) -> CodeBlock.of("new $L$L($L)", constructorClassName(deriveUtils, adt, dc),
+                    typeVariableNames.isEmpty() ? "" : "<>", arguments)))
+        .build());
+
+    if (findAbstractEquals(typeElement).isPresent()) {
+      MethodSpec.Builder equals = MethodSpec.methodBuilder("_equals")
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(adtWildcardType, value)
+          .addParameter(Object.class, "other")
+          .returns(TypeName.BOOLEAN);
+      if (withStack) {
+        equals.addStatement("$T[] stack = null", Object.class).addStatement("int size = 0");
+      }
+      equals.addStatement("$T left = $L", Object.class, value)
+          .addStatement("$T right = other", Object.class)
+          .beginControlFlow("while (true)");
+      if (withStack) {
+        equals.beginControlFlow("if (left != right)");
+      } else {
+        equals.beginControlFlow("if (left == right)").addStatement("return true").endControlFlow();
+      }
+      String equalsDone = withStack ? "break" : "return true";
+      equals.beginControlFlow("if (!(right instanceof $T))", rawAdtType)
+          .addStatement("return false")
+          .endControlFlow()
+          .addStatement("$1T l = _strict(($1T) left)", adtWildcardType)
+          .addStatement("$1T r = _strict(($1T) right)", adtWildcardType)
+          .addStatement("int ordinal = _ordinal(l)")
+          .beginControlFlow("if (ordinal != _ordinal(r))")
+          .addStatement("return false")
+          .endControlFlow()
+          .beginControlFlow("switch (ordinal)");
+      for (DataConstructor dc : adt.dataConstruction().constructors()) {
+        if (dc.arguments().isEmpty()) {
+          equals.addCode("case $L:\n$>", ordinal(adt, dc));
+          equals.addStatement(equalsDone).addCode("$<");
+          continue;
+        }
+        TypeName constructorType = wildcardType(ClassName.bestGuess(constructorClassName(deriveUtils, adt, dc)),
+            typeVariableNames.size());
+        equals.addCode("case $L: {\n$>", ordinal(adt, dc))
+            .addStatement("$1T a = ($1T) l", constructorType)
+            .addStatement("$1T b = ($1T) r", constructorType);
+        if (cachedHashCode(adt, dc)) {
+          equals.beginControlFlow("if ((a._hashCode != 0) && (b._hashCode != 0) && (a._hashCode != b._hashCode))")
+              .addStatement("return false")
+              .endControlFlow();
+        }
+        if (interned(adt)) {
+          equals.beginControlFlow("if (a._interned && b._interned)")
+              .addStatement("return false")
+              .endControlFlow();
+        }
+        List<DataArgument> recursiveArguments = dc.arguments()
+            .stream()
+            .filter(da -> isRecursive(adt, da))
+            .collect(Collectors.toList());
+        String fieldTests = dc.arguments()
+            .stream()
+            .filter(da -> !isRecursive(adt, da))
+            .map(da -> equalityTest(da, "a." + da.fieldName(), "b." + da.fieldName()))
+            .collect(Collectors.joining(" && "));
+        if (!fieldTests.isEmpty()) {
+          equals.beginControlFlow("if (!($L))", fieldTests).addStatement("return false").endControlFlow();
+        }
+        if (recursiveArguments.isEmpty()) {
+          equals.addStatement(equalsDone);
+        } else {
+          if (recursiveArguments.size() > 1) {
+            ensureCapacity(equals, "stack", 2 * (recursiveArguments.size() - 1), TypeName.OBJECT);
+            for (DataArgument da : recursiveArguments.subList(1, recursiveArguments.size())) {
+              equals.addStatement("stack[size++] = a.$L", da.fieldName())
+                  .addStatement("stack[size++] = b.$L", da.fieldName());
+            }
+          }
+          equals.addStatement("left = a.$L", recursiveArguments.get(0).fieldName())
+              .addStatement("right = b.$L", recursiveArguments.get(0).fieldName())
+              .addStatement("continue");
+        }
+        equals.addCode("$<}\n");
+      }
+      equals.addCode("default:\n$>").addStatement("throw new $T()", IllegalStateException.class).addCode("$<");
+      if (withStack) {
+        equals.endControlFlow()
+            .endControlFlow()
+            .beginControlFlow("if (size == 0)")
+            .addStatement("return true")
+            .endControlFlow()
+            .addStatement("right = stack[--size]")
+            .addStatement("left = stack[--size]");
+      } else {
+        equals.endControlFlow();
+      }
+      methods.add(equals.endControlFlow().build());
+    }
+
+    if (findAbstractHashCode(typeElement).isPresent()) {
+      // hashCode is linear in the hash codes of the fields, so that each node contributes its own part multiplied by
+      // the multiplier of its path from the root.
+      MethodSpec.Builder hashCode = MethodSpec.methodBuilder("_hashCode")
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(adtWildcardType, value)
+          .returns(TypeName.INT);
+      if (withStack) {
+        hashCode.addStatement("$T[] stack = null", adtWildcardType)
+            .addStatement("int[] multipliers = null")
+            .addStatement("int size = 0");
+      }
+      String hashCodeDone = withStack ? "break" : "return hashCode";
+      hashCode.addStatement("$T node = $L", adtWildcardType, value)
+          .addStatement("int multiplier = 1")
+          .addStatement("int hashCode = 0")
+          .beginControlFlow("while (true)")
+          .addStatement("$T strict = _strict(node)", adtWildcardType)
+          .beginControlFlow("switch (_ordinal(strict))");
+      for (DataConstructor dc : adt.dataConstruction().constructors()) {
+        int prime = PRIMES.get(ordinal(adt, dc));
+        if (dc.arguments().isEmpty()) {
+          hashCode.addCode("case $L:\n$>", ordinal(adt, dc));
+          hashCode.addStatement("hashCode += multiplier * $L", prime).addStatement(hashCodeDone).addCode("$<");
+          continue;
+        }
+        int arity = dc.arguments().size();
+        int[] factors = new int[arity];
+        int power = 1;
+        for (int i = arity - 1; i >= 0; i--) {
+          factors[i] = power;
+          power *= prime;
+        }
+        int constant = power;
+        hashCode.addCode("case $L: {\n$>", ordinal(adt, dc))
+            .addStatement("$1T n = ($1T) strict", wildcardType(
+                ClassName.bestGuess(constructorClassName(deriveUtils, adt, dc)), typeVariableNames.size()));
+        if (cachedHashCode(adt, dc)) {
+          hashCode.beginControlFlow("if (n._hashCode != 0)")
+              .addStatement("hashCode += multiplier * n._hashCode")
+              .addStatement(hashCodeDone)
+              .endControlFlow();
+        }
+        List<Integer> recursiveArguments = IntStream.range(0, arity)
+            .filter(i -> isRecursive(adt, dc.arguments().get(i)))
+            .boxed()
+            .collect(Collectors.toList());
+        String nodeHashCode = IntStream.range(0, arity)
+            .filter(i -> !recursiveArguments.contains(i))
+            .mapToObj(i -> " + " + factor(hascode(dc.arguments().get(i), "n." + dc.arguments().get(i).fieldName()),
+                factors[i]))
+            .collect(Collectors.joining());
+        hashCode.addStatement(nodeHashCode.isEmpty()
+            ? "hashCode += multiplier * $L$L"
+            : "hashCode += multiplier * ($L$L)", constant, nodeHashCode);
+        if (recursiveArguments.isEmpty()) {
+          hashCode.addStatement(hashCodeDone);
+        } else {
+          if (recursiveArguments.size() > 1) {
+            ensureCapacity(hashCode, "stack", recursiveArguments.size() - 1, adtWildcardType);
+            hashCode.beginControlFlow("if ((multipliers == null) || (multipliers.length < stack.length))")
+                .addStatement("multipliers = (multipliers == null) ? new int[stack.length] : $T.copyOf(multipliers, "
+                    + "stack.length)", Arrays.class)
+                .endControlFlow();
+            for (int i : recursiveArguments.subList(1, recursiveArguments.size())) {
+              hashCode.addStatement("stack[size] = n.$L", dc.arguments().get(i).fieldName())
+                  .addStatement("multipliers[size++] = $L", factor("multiplier", factors[i]));
+            }
+          }
+          int first = recursiveArguments.get(0);
+          hashCode.addStatement("node = n.$L", dc.arguments().get(first).fieldName());
+          if (factors[first] != 1) {
+            hashCode.addStatement("multiplier *= $L", factors[first]);
+          }
+          hashCode.addStatement("continue");
+        }
+        hashCode.addCode("$<}\n");
+      }
+      hashCode.addCode("default:\n$>").addStatement("throw new $T()", IllegalStateException.class).addCode("$<");
+      hashCode.endControlFlow();
+      if (withStack) {
+        hashCode.beginControlFlow("if (size == 0)")
+            .addStatement("return hashCode")
+            .endControlFlow()
+            .addStatement("node = stack[--size]")
+            .addStatement("multiplier = multipliers[size]");
+      }
+      methods.add(hashCode.endControlFlow().build());
+    }
+
+    if (findAbstractToString(typeElement).isPresent()) {
+      // toString appends into a single Appendable, with an optional bound on the depth and on the length of the output
+      // (for very large, or infinite lazy, values):
+      TypeVariableName out = TypeVariableName.get("T", Appendable.class);
+      MethodSpec.Builder appendTo = MethodSpec.methodBuilder("appendTo")
+          .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+          .addTypeVariable(out)
+          .addParameter(adtWildcardType, value)
+          .addParameter(out, "out")
+          .addParameter(TypeName.INT, "depthLimit")
+          .addParameter(TypeName.INT, "lengthLimit")
+          .returns(out)
+          .addException(IOException.class)
+          .addStatement("$T[] stack = null", Object.class)
+          .addStatement("int[] depths = null")
+          .addStatement("int size = 0")
+          .addStatement("int length = 0")
+          .addStatement("$T next = $L", Object.class, value)
+          .addStatement("int depth = 0")
+          .beginControlFlow("while (true)")
+          .addStatement("$T string", String.class)
+          .beginControlFlow("if (next instanceof $T)", String.class)
+          .addStatement("string = ($T) next", String.class)
+          .nextControlFlow("else if (depth >= depthLimit)")
+          .addStatement("string = $S", TRUNCATED)
+          .nextControlFlow("else")
+          .addStatement("$1T strict = _strict(($1T) next)", adtWildcardType)
+          .beginControlFlow("switch (_ordinal(strict))");
+      for (DataConstructor dc : adt.dataConstruction().constructors()) {
+        if (dc.arguments().isEmpty()) {
+          appendTo.addCode("case $L:\n$>", ordinal(adt, dc));
+          appendTo.addStatement("string = $S", dc.name() + "()").addStatement("break").addCode("$<");
+          continue;
+        }
+        int pushes = 2 * dc.arguments().size();
+        appendTo.addCode("case $L: {\n$>", ordinal(adt, dc))
+            .addStatement("$1T n = ($1T) strict", wildcardType(
+                ClassName.bestGuess(constructorClassName(deriveUtils, adt, dc)), typeVariableNames.size()))
+            .addStatement("string = $S", dc.name() + '(');
+        ensureCapacity(appendTo, "stack", pushes, TypeName.OBJECT);
+        appendTo.beginControlFlow("if ((depths == null) || (depths.length < stack.length))")
+            .addStatement("depths = (depths == null) ? new int[stack.length] : $T.copyOf(depths, stack.length)",
+                Arrays.class)
+            .endControlFlow()
+            .addStatement("stack[size++] = $S", ")");
+        for (int i = dc.arguments().size() - 1; i >= 0; i--) {
+          DataArgument da = dc.arguments().get(i);
+          if (isRecursive(adt, da)) {
+            appendTo.addStatement("stack[size] = (n.$1L == null) ? \"null\" : n.$1L", da.fieldName())
+                .addStatement("depths[size++] = depth + 1");
+          } else {
+            appendTo.addStatement("stack[size++] = $T.valueOf($L)", String.class, toString(da, "n." + da.fieldName()));
+          }
+          if (i > 0) {
+            appendTo.addStatement("stack[size++] = $S", ", ");
+          }
+        }
+        appendTo.addStatement("break").addCode("$<}\n");
+      }
+      appendTo.addCode("default:\n$>").addStatement("throw new $T()", IllegalStateException.class).addCode("$<");
+      methods.add(appendTo.endControlFlow()
+          .endControlFlow()
+          .beginControlFlow("if (string.length() > lengthLimit - length)")
+          .addStatement("out.append(string, 0, lengthLimit - length).append($S)", TRUNCATED)
+          .addStatement("return out")
+          .endControlFlow()
+          .addStatement("out.append(string)")
+          .addStatement("length += string.length()")
+          .beginControlFlow("if (size == 0)")
+          .addStatement("return out")
+          .endControlFlow()
+          .addStatement("next = stack[--size]")
+          .addStatement("depth = depths[size]")
+          .endControlFlow()
+          .build());
+
+      methods.add(MethodSpec.methodBuilder("_toString")
+          .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+          .addParameter(adtWildcardType, value)
+          .returns(String.class)
+          .beginControlFlow("try")
+          .addStatement("return appendTo($L, new $T(), $T.MAX_VALUE, $T.MAX_VALUE).toString()", value,
+              StringBuilder.class, Integer.class, Integer.class)
+          .nextControlFlow("catch ($T e)", IOException.class)
+          // cannot happen with a StringBuilder:
+          .addStatement("throw new $T(e)", UncheckedIOException.class)
+          .endControlFlow()
+          .build());
+    }
+
+    return DerivedCodeSpec.methodSpecs(methods);
+  }
+
+  // the stack must have room for the given number of pushes, that can exceed its initial or doubled length:
+  private static void ensureCapacity(MethodSpec.Builder builder, String stack, int needed, TypeName elementType) {
+    builder.beginControlFlow("if ($L == null)", stack)
+        .addStatement("$L = new $T[$L]", stack, elementType, Math.max(16, needed))
+        .nextControlFlow("else if (size + $L > $L.length)", needed, stack)
+        .addStatement("$1L = $2T.copyOf($1L, $3T.max($1L.length * 2, size + $4L))", stack, Arrays.class, Math.class,
+            needed)
+        .endControlFlow();
+  }
+
+  private static String factor(String expression, int factor) {
+    return (factor == 1) ? expression : ('(' + expression + " * " + factor + ')');
+  }
+
+  boolean stackSafe(AlgebraicDataType adt) {
+    return hasOrdinals(adt) && adt.dataConstruction()
+        .constructors()
+        .stream()
+        .anyMatch(dc -> dc.arguments().stream().anyMatch(da -> isRecursive(adt, da)));
+  }
+
+  private boolean stackSafe(AlgebraicDataType adt, DataConstructor constructor) {
+    return stackSafe(adt) && constructor.arguments().stream().anyMatch(da -> isRecursive(adt, da));
+  }
+
+  boolean isRecursive(AlgebraicDataType adt, DataArgument argument) {
+    return deriveUtils.types().isSameType(argument.type(), adt.typeConstructor().declaredType());
+  }
+
+  /**
+   * Constructor ordinals (and the switch based dispatch that rely on them) are only available for non-GADT data types
+   * with multiple constructors whose constructor classes are generated.
+   */
+  static boolean hasOrdinals(AlgebraicDataType adt) {
+    return hasConstructorClasses(adt) && (adt.dataConstruction().constructors().size() > 1);
+  }
+
+  /**
+   * Whether every data constructor is implemented by a generated class whose fields can be read directly.
+   */
+  static boolean hasConstructorClasses(AlgebraicDataType adt) {
+    return adt.deriveConfig().makes().contains(Make.constructors)
+        && (adt.typeConstructor().declaredType().asElement().getKind() != ElementKind.ENUM)
+        && adt.dataConstruction().constructors().stream().allMatch(dc -> dc.typeRestrictions().isEmpty());
+  }
+
+  static int ordinal(AlgebraicDataType adt, DataConstructor constructor) {
+    return IntStream.range(0, adt.dataConstruction().constructors().size())
+        .filter(i -> adt.dataConstruction().constructors().get(i).name().equals(constructor.name()))
+        .findFirst()
+        .getAsInt();
+  }
+
+  static String constructorClassName(DeriveUtils deriveUtils, AlgebraicDataType adt, DataConstructor constructor) {
+
+    NameAllocator nameAllocator = new NameAllocator();
+    nameAllocator.newName(adt.typeConstructor().declaredType().asElement().getSimpleName().toString());
+    adt.typeConstructor().typeVariables().forEach(
+        tv -> nameAllocator.newName(tv.asElement().getSimpleName().toString()));
+    constructor.arguments().stream().filter(da -> da.type().getKind() == TypeKind.DECLARED).forEach(da -> nameAllocator
+        .newName(deriveUtils.types().asElement(da.type()).getSimpleName().toString(), da.fieldName()));
+
+    return nameAllocator.newName(Utils.capitalize(constructor.name()));
+  }
+
   private boolean needLambdaVisitorGeneration(AlgebraicDataType adt) {
     return !adt.deriveConfig().makes().contains(Make.lambdaVisitor)
         && findAbstractEquals(adt.typeConstructor().typeElement()).isPresent();
@@ -379,9 +1125,8 @@ final class StrictConstructorDerivator implements Derivator {
         && caseOf(deriveConfig.targetClass().visibility()).Smart_(true).otherwise_(false);
   }
 
-  private static String equalityTest(DataArgument da) {
+  private static String equalityTest(DataArgument da, String thisField, String other) {
 
-    String thisField = "this." + da.fieldName();
     return da.type().accept(new TypeKindVisitor8<String, String>() {
 
       @Override
@@ -420,10 +1165,10 @@ final class StrictConstructorDerivator implements Derivator {
         return '(' + thisField + " == " + p + ')';
       }
 
-    }, da.fieldName());
+    }, other);
   }
 
-  private static String hascode(DataArgument da) {
+  private static String hascode(DataArgument da, String field) {
 
     return da.type().accept(new TypeKindVisitor8<String, String>() {
 
@@ -486,10 +1231,10 @@ final class StrictConstructorDerivator implements Derivator {
 
         return p + ".hashCode()";
       }
-    }, "this." + da.fieldName());
+    }, field);
   }
 
-  private static String toString(DataArgument da) {
+  private static String toString(DataArgument da, String field) {
 
     return da.type().accept(new TypeKindVisitor8<String, String>() {
 
@@ -505,6 +1250,6 @@ final class StrictConstructorDerivator implements Derivator {
         return p;
       }
 
-    }, "this." + da.fieldName());
+    }, field);
   }
 }
@@ -51,12 +51,14 @@ class TotalMatchingStepDerivator {
   private final DeriveUtils                           deriveUtils;
   private final MapperDerivator                       mapperDerivator;
   private final PartialMatchingStepDerivator          partialMatching;
+  private final OtherwiseMatchingStepDerivator        otherwiseMatching;
   private final PatternMatchingDerivator.MatchingKind matchingKind;
 
   TotalMatchingStepDerivator(DeriveUtils deriveUtils, PatternMatchingDerivator.MatchingKind matchingKind) {
     this.deriveUtils = deriveUtils;
     mapperDerivator = new MapperDerivator(deriveUtils);
     partialMatching = new PartialMatchingStepDerivator(deriveUtils, matchingKind);
+    otherwiseMatching = new OtherwiseMatchingStepDerivator(deriveUtils, matchingKind);
     this.matchingKind = matchingKind;
   }
 
@@ -109,20 +111,20 @@ class TotalMatchingStepDerivator {
     } else {
 
       totalMatchBuilder.addTypeVariable(returnTypeVarName)
-          .superclass(PartialMatchingStepDerivator.superClass(adt, matchingKind, nextConstructors))
+          .superclass(partialMatching.stepSuperClass(adt, nextConstructors))
           .addMethod(constructor
               .addParameters(previousConstructors.stream()
                   .map(dc -> ParameterSpec
                       .builder(mapperDerivator.mapperTypeName(adt, dc), MapperDerivator.mapperFieldName(dc))
                       .build())
                   .collect(Collectors.toList()))
-              .addStatement("super($L)",
-                  (matchingKind == PatternMatchingDerivator.MatchingKind.CaseOf ? adtParamSpec.name + ", " : "")
-                      + joinStringsAsArguments(Stream.concat(
-                          previousConstructors.stream().map(MapperDerivator::mapperFieldName), Stream.of("null"))))
+              .addStatement("super($L)", partialMatching.superConstructorArgs(adt, previousConstructors))
               .build());
 
-      partialMatchMethods = Stream.empty();
+      // chained steps inherit the partial matching methods of the next constructors:
+      partialMatchMethods = PartialMatchingStepDerivator.flatSteps(adt)
+          ? partialMatching.partialMatchMethods(adt, previousConstructors.size() + 1).map(MethodSpec.Builder::build)
+          : Stream.empty();
     }
 
     if (nextConstructors.isEmpty()) {
@@ -133,15 +135,32 @@ class TotalMatchingStepDerivator {
                   adt.typeConstructor().declaredType(), adt.matchMethod().returnTypeVariable()))
           : TypeName.get(adt.matchMethod().returnTypeVariable());
 
-      currentConstructorTotalMatchMethod.returns(returnType).addCode(caseOf(adt.dataConstruction())
-          .multipleConstructors(MultipleConstructorsSupport.cases()
-              .visitorDispatch((visitorParam, visitorType, constructors) -> vistorDispatchImpl(adt, visitorType,
-                  visitorParam, previousConstructors, currentConstructor))
-              .functionsDispatch(constructors1 -> functionDispatchImpl(adt, previousConstructors, currentConstructor)))
-          .oneConstructor(__ -> oneConstructorImpl(currentConstructor, adt))
-          .noConstructor(() -> {
-            throw new IllegalArgumentException();
-          }));
+      if ((matchingKind == PatternMatchingDerivator.MatchingKind.CaseOf) && StrictConstructorDerivator.hasOrdinals(adt)) {
+
+        MethodSpec staticMatch = otherwiseMatching.staticSwitchMethod(adt, "_match", false);
+        String otherwiseMatcher = "((" + OtherwiseMatchingStepDerivator.otherwiseMatcherTypeName(adt).toString()
+            + ") this).";
+
+        totalMatchBuilder.addMethod(staticMatch);
+        currentConstructorTotalMatchMethod.returns(returnType).addStatement("return $N($L)", staticMatch,
+            joinStringsAsArguments(Stream.concat(Stream.of(otherwiseMatcher + adtFieldSpec.name),
+                adt.dataConstruction().constructors().stream().map(dc -> dc.name().equals(currentConstructor.name())
+                    ? MapperDerivator.mapperFieldName(dc)
+                    : otherwiseMatcher + MapperDerivator.mapperFieldName(dc)))));
+
+      } else {
+
+        currentConstructorTotalMatchMethod.returns(returnType).addCode(caseOf(adt.dataConstruction())
+            .multipleConstructors(MultipleConstructorsSupport.cases()
+                .visitorDispatch((visitorParam, visitorType, constructors) -> vistorDispatchImpl(adt, visitorType,
+                    visitorParam, previousConstructors, currentConstructor))
+                .functionsDispatch(
+                    constructors1 -> functionDispatchImpl(adt, previousConstructors, currentConstructor)))
+            .oneConstructor(__ -> oneConstructorImpl(currentConstructor, adt))
+            .noConstructor(() -> {
+              throw new IllegalArgumentException();
+            }));
+      }
 
       currentConstructorTotalMatchConstantMethod.returns(returnType);
 
@@ -202,6 +221,19 @@ class TotalMatchingStepDerivator {
 
     nameAllocator.newName(adtLambdaParam, "adt var");
 
+    if (StrictConstructorDerivator.hasOrdinals(adt)) {
+      return codeBlock
+          .add(ordinalSwitchImpl(adt, nameAllocator.get("adt var"), MapperDerivator::mapperFieldName,
+              CodeBlock.builder().build(),
+              adtVar -> CodeBlock.builder()
+                  .addStatement("return $L.$L($L)", adtVar, adt.matchMethod().element().getSimpleName(),
+                      joinStringsAsArguments(
+                          Stream.concat(previousConstructors.stream().map(MapperDerivator::mapperFieldName),
+                              Stream.of(MapperDerivator.mapperFieldName(currentConstructor)))))
+                  .build()))
+          .build();
+    }
+
     String template;
     Object templateArg;
     if (matchingKind == PatternMatchingDerivator.MatchingKind.Cases) {
@@ -231,14 +263,28 @@ class TotalMatchingStepDerivator {
 
     ParameterizedTypeName otherwiseMatcherTypeName = OtherwiseMatchingStepDerivator.otherwiseMatcherTypeName(adt);
 
-    CodeBlock.Builder implBuilder = CodeBlock.builder()
+    CodeBlock visitorVar = CodeBlock.builder()
         .addStatement("$T $L = $T.$L($L)", TypeName.get(visitorType), nameAllocator.get("visitor var"),
             adt.deriveConfig().targetClass().className(), MapperDerivator.visitorLambdaFactoryName(adt),
             joinStringsAsArguments(Stream.concat(
                 previousConstructors.stream()
                     .map(dc -> "((" + otherwiseMatcherTypeName.toString() + ") this)."
                         + MapperDerivator.mapperFieldName(dc)),
-                Stream.of(MapperDerivator.mapperFieldName(currentConstructor)))));
+                Stream.of(MapperDerivator.mapperFieldName(currentConstructor)))))
+        .build();
+
+    if (StrictConstructorDerivator.hasOrdinals(adt)) {
+      return ordinalSwitchImpl(adt, nameAllocator.get("adt var"),
+          dc -> dc.name().equals(currentConstructor.name())
+              ? MapperDerivator.mapperFieldName(dc)
+              : "((" + otherwiseMatcherTypeName.toString() + ") this)." + MapperDerivator.mapperFieldName(dc),
+          visitorVar, adtVar -> CodeBlock.builder()
+              .addStatement("return $L.$L($L)", adtVar, adt.matchMethod().element().getSimpleName(),
+                  nameAllocator.get("visitor var"))
+              .build());
+    }
+
+    CodeBlock.Builder implBuilder = visitorVar.toBuilder();
 
     if (matchingKind == PatternMatchingDerivator.MatchingKind.Cases) {
       implBuilder.addStatement("return $1L -> $1L.$2L($3L)", nameAllocator.get("adt var"),
@@ -255,6 +301,24 @@ class TotalMatchingStepDerivator {
     return implBuilder.build();
   }
 
+  /**
+   * Cases matching: {@code visitorVar} is created once, with the matcher, and the switch is the body of the returned
+   * function. (CaseOf matching uses {@link OtherwiseMatchingStepDerivator#staticSwitchMethod}.)
+   */
+  private CodeBlock ordinalSwitchImpl(AlgebraicDataType adt, String adtLambdaParam,
+      Function<DataConstructor, String> mapper, CodeBlock visitorVar, Function<String, CodeBlock> defaultCase) {
+
+    return CodeBlock.builder()
+        .add(visitorVar)
+        .add("return $L -> {\n$>", adtLambdaParam)
+        .add(PatternMatchingDerivator.ordinalSwitch(deriveUtils, adt, adtLambdaParam,
+            (dc, args) -> CodeBlock.of("$L.$L($L)", mapper.apply(dc),
+                mapperDerivator.mapperApplyMethod(adt.deriveConfig(), dc), args),
+            defaultCase.apply(adtLambdaParam)))
+        .add("$<};\n")
+        .build();
+  }
+
   static String totalMatchBuilderClassName(DataConstructor currentConstructor) {
 
     return "TotalMatcher_" + Utils.capitalize(currentConstructor.name());
@@ -18,7 +18,9 @@
  */
 package org.derive4j.processor;
 
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.NameAllocator;
 import com.squareup.javapoet.ParameterSpec;
@@ -46,6 +48,7 @@ import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
 import javax.lang.model.type.TypeVisitor;
@@ -270,6 +273,26 @@ final class Utils {
     return (typeArgs.length == 0) ? className : ParameterizedTypeName.get(className, typeArgs);
   }
 
+  /**
+   * Element type of an array of values of the given type: arrays of generic types cannot be created, so those values
+   * are kept in {@code Object} arrays.
+   */
+  static TypeName arrayElementType(TypeMirror type, Types types) {
+    return (type.getKind() != TypeKind.TYPEVAR) && types.isSameType(type, types.erasure(type))
+        ? TypeName.get(type)
+        : TypeName.OBJECT;
+  }
+
+  static CodeBlock newArray(TypeName elementType, String length) {
+    int dimensions = 0;
+    TypeName componentType = elementType;
+    while (componentType instanceof ArrayTypeName) {
+      componentType = ((ArrayTypeName) componentType).componentType;
+      dimensions++;
+    }
+    return CodeBlock.of("new $T[$L]$L", componentType, length, String.join("", Collections.nCopies(dimensions, "[]")));
+  }
+
   static Stream<ExecutableElement> getMethods(final List<? extends Element> amongElements) {
 
     return amongElements.stream().map(asExecutableElement::visit).flatMap(Utils::optionalAsStream);
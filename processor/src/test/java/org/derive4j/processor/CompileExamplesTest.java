@@ -22,6 +22,7 @@ import com.google.common.truth.Truth;
 import com.google.testing.compile.JavaFileObjects;
 import java.util.Arrays;
 import java.util.stream.Collectors;
+import org.junit.Assume;
 import org.junit.Test;
 
 import static com.google.testing.compile.JavaSourcesSubjectFactory.javaSources;
@@ -63,6 +64,42 @@ public class CompileExamplesTest {
     checkCompileOf("Event.java", "ExtendedEvent.java", "data.java");
   }
 
+  @Test
+  public void compile_lockFreeLazy() {
+    checkCompileOf("Nat.java");
+  }
+
+  @Test
+  public void compile_interned() {
+    checkCompileOf("Formula.java");
+  }
+
+  @Test
+  public void compile_jfrEvents() {
+    Assume.assumeTrue(jdkFlightRecorderAvailable());
+    checkCompileOf("Message.java");
+  }
+
+  @Test
+  public void compile_primitiveMatching() {
+    checkCompileOf("Shape.java");
+  }
+
+  @Test
+  public void compile_flyweight() {
+    checkCompileOf("Tick.java");
+  }
+
+  @Test
+  public void compile_iterators() {
+    checkCompileOf("BinaryTree.java");
+  }
+
+  @Test
+  public void compile_iterators_nonGeneric() {
+    checkCompileOf("IntTree.java");
+  }
+
   @Test
   public void compile_InfiniteStream() {
     checkCompileOf("Stream.java");
@@ -93,6 +130,19 @@ public class CompileExamplesTest {
     checkCompileOf("algebras/ObjectAlgebras.java");
   }
 
+  // ArgOption.jfrEvents generates subclasses of jdk.jfr.Event, that is provided by the jdk.jfr module of JDK 11+.
+  private static boolean jdkFlightRecorderAvailable() {
+    if (System.getProperty("java.specification.version").startsWith("1.")) {
+      return false;
+    }
+    try {
+      Class.forName("jdk.jfr.Event");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
   private static void checkCompileOf(String... exampleFiles) {
     Truth.assert_()
         .about(javaSources())
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.google.common.collect.Sets;
+import com.google.common.truth.Truth;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import org.junit.Test;
+
+import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
+
+public class DeriveConfigBuilderTest {
+
+  @Test
+  public void findDeriveConfig_should_be_computed_once_per_type_and_round() {
+
+    Truth.assert_()
+        .about(javaSource())
+        .that(JavaFileObjects.forSourceLines("org.derive4j.processor.TestC",
+            "@org.derive4j.Data",
+            "public abstract class TestC {",
+            "  public abstract <R> R match(java.util.function.Function<String, R> c);",
+            "}"))
+        .processedWith(new AbstractProcessor() {
+          @Override
+          public Set<String> getSupportedAnnotationTypes() {
+
+            return Sets.newHashSet("*");
+          }
+
+          @Override
+          public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+            if (!roundEnv.processingOver()) {
+              DeriveConfigBuilder deriveConfigBuilder = new DeriveConfigBuilder(processingEnv.getElementUtils());
+              Set<TypeElement> typeElements = ElementFilter.typesIn(roundEnv.getRootElements());
+              for (TypeElement typeElement : typeElements) {
+                Truth.assertThat(deriveConfigBuilder.findDeriveConfig(typeElement).isPresent()).isTrue();
+                Truth.assertThat(deriveConfigBuilder.findDeriveConfig(typeElement))
+                    .isSameAs(deriveConfigBuilder.findDeriveConfig(typeElement));
+              }
+              Truth.assertThat(deriveConfigBuilder.deriveConfigMisses()).isEqualTo(typeElements.size());
+              Truth.assertThat(deriveConfigBuilder.deriveConfigHits()).isEqualTo(2 * typeElements.size());
+
+              deriveConfigBuilder.newRound();
+              typeElements.forEach(deriveConfigBuilder::findDeriveConfig);
+              Truth.assertThat(deriveConfigBuilder.deriveConfigMisses()).isEqualTo(2 * typeElements.size());
+            }
+            return false;
+          }
+        })
+        .compilesWithoutError();
+  }
+
+}
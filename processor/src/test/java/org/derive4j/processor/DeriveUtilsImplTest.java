@@ -21,6 +21,8 @@ package org.derive4j.processor;
 import com.google.common.collect.Sets;
 import com.google.common.truth.Truth;
 import com.google.testing.compile.JavaFileObjects;
+import com.squareup.javapoet.ClassName;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.processing.AbstractProcessor;
@@ -28,7 +30,11 @@ import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
+import org.derive4j.processor.api.BoundExpression;
+import org.derive4j.processor.api.DeriveResult;
+import org.derive4j.processor.api.DeriveResults;
 import org.junit.Test;
 
 import static com.google.testing.compile.JavaSourceSubjectFactory.javaSource;
@@ -71,4 +77,95 @@ public class DeriveUtilsImplTest {
         .compilesWithoutError();
   }
 
+  @Test
+  public void allAbstractMethods_should_be_served_from_member_index() {
+
+    Truth.assert_()
+        .about(javaSource())
+        .that(JavaFileObjects.forSourceString("org.derive4j.processor.TestG",
+            "public abstract class TestG<A> implements java.util.function.Supplier<A>, java.util.Comparator<A> {}"))
+        .processedWith(new AbstractProcessor() {
+          @Override
+          public Set<String> getSupportedAnnotationTypes() {
+
+            return Sets.newHashSet("*");
+          }
+
+          @Override
+          public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+            if (!roundEnv.processingOver()) {
+              DeriveUtilsImpl deriveUtils = new DeriveUtilsImpl(
+                  processingEnv.getElementUtils(),
+                  processingEnv.getTypeUtils(),
+                  processingEnv.getSourceVersion(),
+                  new DeriveConfigBuilder(processingEnv.getElementUtils()));
+              MemberIndex memberIndex = deriveUtils.memberIndex();
+              for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                List<ExecutableElement> abstractMethods = deriveUtils.allAbstractMethods(typeElement);
+                Truth.assertThat(abstractMethods).hasSize(2);
+                int queries = memberIndex.queries();
+
+                Truth.assertThat(deriveUtils.allAbstractMethods(typeElement)).isEqualTo(abstractMethods);
+                Truth.assertThat(memberIndex.queries()).isEqualTo(queries);
+                Truth.assertThat(memberIndex.savedQueries()).isGreaterThan(0);
+
+                memberIndex.newRound();
+                Truth.assertThat(deriveUtils.allAbstractMethods(typeElement)).isEqualTo(abstractMethods);
+                Truth.assertThat(memberIndex.queries()).isGreaterThan(queries);
+              }
+
+            }
+            return false;
+          }
+        })
+        .compilesWithoutError();
+  }
+
+  @Test
+  public void instanceInitializer_should_be_memoized() {
+
+    Truth.assert_()
+        .about(javaSource())
+        .that(JavaFileObjects.forSourceString("org.derive4j.processor.TestH", "public abstract class TestH {}"))
+        .processedWith(new AbstractProcessor() {
+          @Override
+          public Set<String> getSupportedAnnotationTypes() {
+
+            return Sets.newHashSet("*");
+          }
+
+          @Override
+          public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+            if (!roundEnv.processingOver()) {
+              DeriveUtilsImpl deriveUtils = new DeriveUtilsImpl(
+                  processingEnv.getElementUtils(),
+                  processingEnv.getTypeUtils(),
+                  processingEnv.getSourceVersion(),
+                  new DeriveConfigBuilder(processingEnv.getElementUtils()));
+              ClassName show = ClassName.get("fj", "Show");
+              TypeMirror string = processingEnv.getElementUtils().getTypeElement("java.lang.String").asType();
+              for (TypeElement typeElement : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                DeriveResult<BoundExpression> instance = deriveUtils.instanceInitializer(typeElement, show, show, string,
+                    Collections.emptyList());
+                Truth.assertThat(DeriveResults.getResult(instance).isPresent()).isTrue();
+
+                Truth.assertThat(deriveUtils.instanceInitializer(typeElement, show, show, string,
+                    Collections.emptyList())).isSameAs(instance);
+                Truth.assertThat(deriveUtils.instanceResolutionsComputed()).isEqualTo(1);
+                Truth.assertThat(deriveUtils.instanceResolutionsReused()).isEqualTo(1);
+
+                deriveUtils.newRound();
+                deriveUtils.instanceInitializer(typeElement, show, show, string, Collections.emptyList());
+                Truth.assertThat(deriveUtils.instanceResolutionsComputed()).isEqualTo(2);
+              }
+
+            }
+            return false;
+          }
+        })
+        .compilesWithoutError();
+  }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.Compiler.javac;
+
+/**
+ * Compilation of a synthetic module of data types (a thousand by default) (with the default derivations, and derived equals,
+ * hashCode and toString).
+ */
+public class DerivingProcessorBench {
+
+  static final int ITERATIONS = 3;
+  static final int WARMUP     = 1;
+
+  public static void main(String[] args) {
+
+    int adts = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+    // with "instances" as second argument, functionaljava Show, Equal, Hash and Ord instances are also derived:
+    boolean instances = (args.length > 1) && "instances".equals(args[1]);
+    List<JavaFileObject> sources = IntStream.range(0, adts)
+        .mapToObj(i -> adt(i, instances))
+        .collect(Collectors.toList());
+
+    // Timings of a (noisy) single CPU environment (run with 100 as argument):
+    // 100 data types: Average time: 17300.305704 ms
+    // Then a last compilation reports the javac model lookups saved by the round-scoped caches (100 data types):
+    // Derive4J: derive configurations computed 100 times, reused 0 times; member lookups computed 826 times, reused
+    // 6990 times.
+    // With instances (run with 50 instances as arguments), before and after the memoization of instance resolutions:
+    // 50 data types: Average time: 14526.781807 ms
+    // Derive4J: [...] member lookups computed 434 times, reused 22886 times.
+    // 50 data types: Average time: 14885.218348 ms
+    // Derive4J: [...] member lookups computed 434 times, reused 4910 times; instance resolutions computed 1600 times,
+    // reused 600 times; instance providers indexed 204 times, reused 2196 times.
+    for (int i = 0; i < WARMUP; i++) {
+      compile(sources);
+    }
+    long time = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      long t = System.nanoTime();
+      compile(sources);
+      time += System.nanoTime() - t;
+    }
+    System.out.println(adts + " data types: Average time: " + (time / ITERATIONS / 1000000.0) + " ms");
+
+    compile(sources, "-A" + DerivingProcessor.STATS_OPTION).notes()
+        .forEach(note -> System.out.println(note.getMessage(null)));
+  }
+
+  private static Compilation compile(List<JavaFileObject> sources, String... options) {
+    Compilation compilation = javac().withProcessors(new DerivingProcessor()).withOptions((Object[]) options).compile(
+        sources);
+    if (compilation.status() != Compilation.Status.SUCCESS) {
+      throw new IllegalStateException(compilation.errors().toString());
+    }
+    return compilation;
+  }
+
+  private static JavaFileObject adt(int i, boolean instances) {
+    String name = "Adt" + i;
+    return JavaFileObjects.forSourceLines("bench." + name,
+        "package bench;",
+        "",
+        "import fj.Equal;",
+        "import fj.Hash;",
+        "import fj.Ord;",
+        "import fj.Show;",
+        "import fj.data.List;",
+        "import fj.data.Option;",
+        "import org.derive4j.Data;",
+        "import org.derive4j.Derive;",
+        "import org.derive4j.Instances;",
+        "",
+        instances ? "@Data(@Derive(@Instances({ Show.class, Equal.class, Hash.class, Ord.class })))" : "@Data",
+        "public abstract class " + name + "<A> {",
+        "  interface Cases<A, R> {",
+        "    R First(int index, String label);",
+        "    R Second(long timestamp, List<A> values);",
+        "    R Third(A value, " + name + "<A> next);",
+        "    R Fourth(Option<String> tag, List<String> labels);",
+        "  }",
+        "",
+        "  public abstract <R> R match(Cases<A, R> cases);",
+        "",
+        "  @Override",
+        "  public abstract boolean equals(Object obj);",
+        "",
+        "  @Override",
+        "  public abstract int hashCode();",
+        "",
+        "  @Override",
+        "  public abstract String toString();",
+        "}");
+  }
+}
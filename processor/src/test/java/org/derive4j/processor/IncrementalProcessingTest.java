@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2019, Jean-Baptiste Giraudeau <jb@giraudeau.info>
+ *
+ * This file is part of "Derive4J - Annotation Processor".
+ *
+ * "Derive4J - Annotation Processor" is free software: you can redistribute it
+ * and/or modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation, either version 3 of the License,
+ * or (at your option) any later version.
+ *
+ * "Derive4J - Annotation Processor" is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with "Derive4J - Annotation Processor".  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.derive4j.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the constraints of Gradle isolating annotation processors: each generated file must have the data type it is
+ * derived from as single originating element, and the processing of a data type must not depend on the other types of
+ * the compilation.
+ */
+public class IncrementalProcessingTest {
+
+  @Test
+  public void claimsAllAnnotationsByDefault() {
+    DerivingProcessor processor = new DerivingProcessor();
+    assertThat(javac().withProcessors(processor).compile(example("Amount.java"))).succeeded();
+    assertEquals(singletonList("*"), processor.getSupportedAnnotationTypes().stream().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void claimsOnlyDeriveAnnotationsWithAnEmptyOption() {
+    DerivingProcessor processor = new DerivingProcessor();
+    assertThat(javac().withProcessors(processor)
+        .withOptions("-A" + DerivingProcessor.ANNOTATIONS_OPTION + "=")
+        .compile(example("Amount.java"))).succeeded();
+    assertEquals(Arrays.asList("org.derive4j.Data", "org.derive4j.Derive"),
+        processor.getSupportedAnnotationTypes().stream().collect(Collectors.toList()));
+  }
+
+  @Test
+  public void customAnnotationsAreFollowedByDefault() {
+    OriginatingElementsRecorder recorder = new OriginatingElementsRecorder();
+    Compilation compilation = javac().withProcessors(recorder)
+        .compile(example("data.java"), example("PhoneAndPers.java"), example("Event.java"));
+    assertThat(compilation).succeeded();
+    assertTrue(compilation.warnings().isEmpty());
+    assertTrue(recorder.originatingElements.containsKey("org.derive4j.example.PhoneImpl"));
+  }
+
+  @Test
+  public void everyGeneratedFileHasItsDataTypeAsSingleOriginatingElement() {
+    OriginatingElementsRecorder recorder = new OriginatingElementsRecorder();
+    Compilation compilation = javac().withProcessors(recorder)
+        .compile(example("IntNewType.java"), example("Amount.java"), example("Country.java"));
+    assertThat(compilation).succeeded();
+
+    Map<String, String> expectedOrigins = new HashMap<>();
+    expectedOrigins.put("org.derive4j.example.IntNewTypes", "org.derive4j.example.IntNewType");
+    expectedOrigins.put("org.derive4j.example.IntNewTypeInstances", "org.derive4j.example.IntNewType");
+    expectedOrigins.put("org.derive4j.example.Amounts", "org.derive4j.example.Amount");
+    expectedOrigins.put("org.derive4j.example.Countries", "org.derive4j.example.Country");
+    assertEquals(expectedOrigins.keySet(), recorder.originatingElements.keySet());
+    expectedOrigins.forEach((generated, origin) -> assertEquals(generated, singletonList(origin),
+        recorder.originatingElements.get(generated)));
+  }
+
+  @Test
+  public void recompilingADataTypeAloneRegeneratesOnlyItsFiles() {
+    OriginatingElementsRecorder fullBuild = new OriginatingElementsRecorder();
+    assertThat(javac().withProcessors(fullBuild).compile(example("Amount.java"), example("Country.java"))).succeeded();
+
+    // what an incremental compilation does after a change of Amount.java:
+    OriginatingElementsRecorder incrementalBuild = new OriginatingElementsRecorder();
+    Compilation compilation = javac().withProcessors(incrementalBuild).compile(example("Amount.java"));
+    assertThat(compilation).succeeded();
+    assertEquals(singletonList("org.derive4j.example.Amounts"),
+        incrementalBuild.originatingElements.keySet().stream().collect(Collectors.toList()));
+    assertEquals(fullBuild.sources.get("org.derive4j.example.Amounts"),
+        incrementalBuild.sources.get("org.derive4j.example.Amounts"));
+  }
+
+  @Test
+  public void customAnnotationsAreClaimedThroughOption() {
+    OriginatingElementsRecorder recorder = new OriginatingElementsRecorder();
+    Compilation compilation = javac().withProcessors(recorder)
+        .withOptions("-A" + DerivingProcessor.ANNOTATIONS_OPTION + "=org.derive4j.example.data")
+        .compile(example("data.java"), example("PhoneAndPers.java"), example("Event.java"));
+    assertThat(compilation).succeeded();
+    assertTrue(compilation.warnings().isEmpty());
+    assertTrue(recorder.getSupportedAnnotationTypes().contains("org.derive4j.example.data"));
+    assertEquals(singletonList("org.derive4j.example.PhoneAndPers.Phone"),
+        recorder.originatingElements.get("org.derive4j.example.PhoneImpl"));
+    assertEquals(singletonList("org.derive4j.example.PhoneAndPers.Pers"),
+        recorder.originatingElements.get("org.derive4j.example.PersImpl"));
+  }
+
+  @Test
+  public void unclaimedCustomAnnotationsAreReported() {
+    OriginatingElementsRecorder recorder = new OriginatingElementsRecorder();
+    Compilation compilation = javac().withProcessors(recorder)
+        .withOptions("-A" + DerivingProcessor.ANNOTATIONS_OPTION + "=")
+        .compile(example("data.java"), example("PhoneAndPers.java"), example("Event.java"));
+    assertThat(compilation).succeeded();
+    assertThat(compilation).hadWarningContaining("-A" + DerivingProcessor.ANNOTATIONS_OPTION);
+    assertTrue(recorder.originatingElements.containsKey("org.derive4j.example.PhoneImpl"));
+  }
+
+  private static JavaFileObject example(String file) {
+    return JavaFileObjects.forResource("org/derive4j/example/" + file);
+  }
+
+  /**
+   * Runs the {@link DerivingProcessor} with a {@link Filer} that records the originating elements of the generated
+   * source files, as Gradle does.
+   */
+  private static final class OriginatingElementsRecorder extends AbstractProcessor {
+
+    final DerivingProcessor         processor           = new DerivingProcessor();
+    final Map<String, List<String>> originatingElements = new HashMap<>();
+    final Map<String, String>       sources             = new HashMap<>();
+
+    @Override
+    public Set<String> getSupportedOptions() {
+      return processor.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return processor.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return processor.getSupportedSourceVersion();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+      super.init(processingEnv);
+      Filer filer = processingEnv.getFiler();
+      Filer recordingFiler = new Filer() {
+        @Override
+        public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+          OriginatingElementsRecorder.this.originatingElements.put(name.toString(), Arrays.stream(originatingElements)
+              .map(e -> ((TypeElement) e).getQualifiedName().toString())
+              .collect(Collectors.toList()));
+          JavaFileObject sourceFile = filer.createSourceFile(name, originatingElements);
+          return new javax.tools.ForwardingJavaFileObject<JavaFileObject>(sourceFile) {
+            @Override
+            public java.io.Writer openWriter() throws IOException {
+              return new java.io.FilterWriter(super.openWriter()) {
+                private final StringBuilder source = new StringBuilder();
+
+                @Override
+                public void write(int c) throws IOException {
+                  source.append((char) c);
+                  super.write(c);
+                }
+
+                @Override
+                public void write(char[] cbuf, int off, int len) throws IOException {
+                  source.append(cbuf, off, len);
+                  super.write(cbuf, off, len);
+                }
+
+                @Override
+                public void write(String str, int off, int len) throws IOException {
+                  source.append(str, off, off + len);
+                  super.write(str, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                  sources.put(name.toString(), source.toString());
+                  super.close();
+                }
+              };
+            }
+          };
+        }
+
+        @Override
+        public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+          return filer.createClassFile(name, originatingElements);
+        }
+
+        @Override
+        public FileObject createResource(JavaFileManager.Location location, CharSequence pkg,
+            CharSequence relativeName, Element... originatingElements) throws IOException {
+          return filer.createResource(location, pkg, relativeName, originatingElements);
+        }
+
+        @Override
+        public FileObject getResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName)
+            throws IOException {
+          return filer.getResource(location, pkg, relativeName);
+        }
+      };
+      processor.init(new ProcessingEnvironment() {
+        @Override
+        public Map<String, String> getOptions() {
+          return processingEnv.getOptions();
+        }
+
+        @Override
+        public Messager getMessager() {
+          return processingEnv.getMessager();
+        }
+
+        @Override
+        public Filer getFiler() {
+          return recordingFiler;
+        }
+
+        @Override
+        public Elements getElementUtils() {
+          return processingEnv.getElementUtils();
+        }
+
+        @Override
+        public Types getTypeUtils() {
+          return processingEnv.getTypeUtils();
+        }
+
+        @Override
+        public SourceVersion getSourceVersion() {
+          return processingEnv.getSourceVersion();
+        }
+
+        @Override
+        public Locale getLocale() {
+          return processingEnv.getLocale();
+        }
+      });
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      return processor.process(annotations, roundEnv);
+    }
+  }
+}